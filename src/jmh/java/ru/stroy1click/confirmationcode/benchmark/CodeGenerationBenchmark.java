@@ -0,0 +1,69 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.stroy1click.confirmationcode.generator.ConfirmationCodeGenerator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерация кода подтверждения: прежний общий Random против ConfirmationCodeGenerator (SecureRandom,
+ * коды заранее разложены по полосам). Многопоточные варианты показывают конкуренцию за seed общего Random.
+ * mvn -Pbenchmarks compile exec:exec -Djmh.args="CodeGenerationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodeGenerationBenchmark {
+
+    private final Random random = new Random();
+
+    private ConfirmationCodeGenerator confirmationCodeGenerator;
+
+    @Setup
+    public void setUp(){
+        this.confirmationCodeGenerator = new ConfirmationCodeGenerator(new SimpleMeterRegistry(), 1024);
+    }
+
+    @TearDown
+    public void tearDown(){
+        this.confirmationCodeGenerator.destroy();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int sharedRandom_1Thread(){
+        return this.random.nextInt(1_000_000, 9_999_999);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int sharedRandom_8Threads(){
+        return this.random.nextInt(1_000_000, 9_999_999);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int sharedRandom_64Threads(){
+        return this.random.nextInt(1_000_000, 9_999_999);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int generator_1Thread(){
+        return this.confirmationCodeGenerator.nextCode();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int generator_8Threads(){
+        return this.confirmationCodeGenerator.nextCode();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int generator_64Threads(){
+        return this.confirmationCodeGenerator.nextCode();
+    }
+}
@@ -0,0 +1,89 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.stroy1click.confirmationcode.client.UserClient;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.generator.ConfirmationCodeGenerator;
+import ru.stroy1click.confirmationcode.lockout.FailedAttemptGuard;
+import ru.stroy1click.confirmationcode.lockout.impl.InMemoryFailedAttemptCounter;
+import ru.stroy1click.confirmationcode.model.*;
+import ru.stroy1click.confirmationcode.service.impl.ConfirmationCodeServiceImpl;
+import ru.stroy1click.confirmationcode.store.impl.InMemoryConfirmationCodeStore;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Вызовы ConfirmationCodeServiceImpl целиком без сети и базы: хранилище в памяти, клиенты - заглушки.
+ * Показывает собственную стоимость сервиса (генерация кода, хранилище, защита от перебора, отказы).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfirmationCodeServiceBenchmark {
+
+    private static final ThreadLocal<Integer> LAST_SENT_CODE = new ThreadLocal<>();
+
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    private InMemoryConfirmationCodeStore confirmationCodeStore;
+
+    private ConfirmationCodeGenerator confirmationCodeGenerator;
+
+    private ConfirmationCodeServiceImpl confirmationCodeService;
+
+    @Setup
+    public void setUp(){
+        this.confirmationCodeStore = new InMemoryConfirmationCodeStore(Duration.ofSeconds(1), 64);
+        this.confirmationCodeGenerator = new ConfirmationCodeGenerator(new SimpleMeterRegistry(), 1024);
+        this.confirmationCodeService = new ConfirmationCodeServiceImpl(
+                this.confirmationCodeStore,
+                (email, jwt) -> { },
+                new StubUserClient(),
+                this.confirmationCodeGenerator,
+                sendEmailRequest -> LAST_SENT_CODE.set(sendEmailRequest.getCode()),
+                () -> "token",
+                new FailedAttemptGuard(new InMemoryFailedAttemptCounter(100_000),
+                        new SimpleMeterRegistry(), 5, Duration.ofHours(24)),
+                Runnable::run,
+                TransactionOperations.withoutTransaction()
+        );
+    }
+
+    @TearDown
+    public void tearDown(){
+        this.confirmationCodeStore.destroy();
+        this.confirmationCodeGenerator.destroy();
+    }
+
+    @Benchmark
+    public void create_then_verifyEmail(){
+        String email = "user" + this.emailSequence.incrementAndGet() + "@bench.stroy1click.ru";
+        this.confirmationCodeService.create(new CreateConfirmationCodeRequest(Type.EMAIL, email));
+        this.confirmationCodeService.verifyEmail(new CodeVerificationRequest(email, LAST_SENT_CODE.get()));
+    }
+
+    @Benchmark
+    public ConfirmationCodeOutcome verifyEmail_unknownCode(){
+        return this.confirmationCodeService.verifyEmail(new CodeVerificationRequest("missing@bench.stroy1click.ru", 1_234_567));
+    }
+
+    private static final class StubUserClient implements UserClient {
+
+        @Override
+        public void updateEmailConfirmedStatus(ConfirmEmailRequest confirmEmailRequest) {
+        }
+
+        @Override
+        public void updatePassword(UserServiceUpdatePasswordRequest request) {
+        }
+
+        @Override
+        public UserProjection getByEmail(String email) {
+            return new UserProjection(email, false, "Bench");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.model.ConfirmationCodeOutcome;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена ожидаемого отказа ("код неверный"), который проходит depth кадров до обработчика: так же, как отказ сервиса
+ * проходит через прокси Spring AOP, Resilience4j и фильтры Tomcat до AdviceController.
+ * filledException - прежнее исключение со стеком, stacklessException - нынешнее ValidationException,
+ * outcome - значение ConfirmationCodeOutcome. Аллокации: -Djmh.args="ExpectedOutcomeBenchmark -prof gc".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExpectedOutcomeBenchmark {
+
+    @Param({"16", "128"})
+    private int depth;
+
+    @Benchmark
+    public Object filledException(){
+        try {
+            return throwFilled(this.depth);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object stacklessException(){
+        try {
+            return throwStackless(this.depth);
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ConfirmationCodeOutcome outcome(){
+        return returnOutcome(this.depth);
+    }
+
+    private static Object throwFilled(int depth){
+        if (depth == 0) throw new RuntimeException("Код подтверждения не валиден");
+        return throwFilled(depth - 1);
+    }
+
+    private static Object throwStackless(int depth){
+        if (depth == 0) throw new ValidationException("Код подтверждения не валиден");
+        return throwStackless(depth - 1);
+    }
+
+    private static ConfirmationCodeOutcome returnOutcome(int depth){
+        if (depth == 0) return ConfirmationCodeOutcome.INVALID;
+        return returnOutcome(depth - 1);
+    }
+}
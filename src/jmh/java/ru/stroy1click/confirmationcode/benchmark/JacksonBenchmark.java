@@ -0,0 +1,67 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.stroy1click.confirmationcode.dto.UserDto;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.model.Role;
+import ru.stroy1click.confirmationcode.model.SendEmailRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (Де)сериализация тел запросов к user-service и email-service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JacksonBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UserDto user;
+
+    private SendEmailRequest sendEmailRequest;
+
+    private String userJson;
+
+    private String sendEmailRequestJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        this.user = UserDto.builder()
+                .id(1L)
+                .firstName("Ryan")
+                .lastName("Thompson")
+                .email("rayan_thompson@gmail.com")
+                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
+                .role(Role.ROLE_USER)
+                .emailConfirmed(false)
+                .build();
+        this.sendEmailRequest = new SendEmailRequest(1_234_567,
+                new UserProjection(this.user.getEmail(), this.user.getEmailConfirmed(), this.user.getFirstName()).toUserDto());
+        this.userJson = this.objectMapper.writeValueAsString(this.user);
+        this.sendEmailRequestJson = this.objectMapper.writeValueAsString(this.sendEmailRequest);
+    }
+
+    @Benchmark
+    public String serializeUserDto() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsString(this.user);
+    }
+
+    @Benchmark
+    public UserDto deserializeUserDto() throws JsonProcessingException {
+        return this.objectMapper.readValue(this.userJson, UserDto.class);
+    }
+
+    @Benchmark
+    public String serializeSendEmailRequest() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsString(this.sendEmailRequest);
+    }
+
+    @Benchmark
+    public SendEmailRequest deserializeSendEmailRequest() throws JsonProcessingException {
+        return this.objectMapper.readValue(this.sendEmailRequestJson, SendEmailRequest.class);
+    }
+}
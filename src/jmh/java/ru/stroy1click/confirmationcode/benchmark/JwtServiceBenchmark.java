@@ -0,0 +1,57 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import ru.stroy1click.confirmationcode.service.impl.JwtServiceImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость получения сервисного токена: signPerCall повторяет прежнюю реализацию
+ * (декодирование ключа и подпись на каждый вызов), cachedToken - текущий JwtServiceImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtServiceBenchmark {
+
+    static final String SECRET = "5367566B5970337336762342342342341139792F4123F452811482B4D6251655468576D5A71347437";
+
+    private JwtServiceImpl jwtService;
+
+    @Setup
+    public void setUp(){
+        this.jwtService = new JwtServiceImpl(SECRET, Duration.ofMinutes(30));
+    }
+
+    @Benchmark
+    public String signPerCall(){
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", "ROLE_ADMIN");
+        claims.put("emailConfirmed", "true");
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject("admin@gmail.com")
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 300))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256).compact();
+    }
+
+    @Benchmark
+    public String cachedToken(){
+        return this.jwtService.generateToken();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String cachedToken_8Threads(){
+        return this.jwtService.generateToken();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import ru.stroy1click.confirmationcode.message.MessageCatalog;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Текст ответа: MessageSource.getMessage на каждый запрос, как раньше, против чтения из MessageCatalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageCatalogBenchmark {
+
+    private static final Locale RU = Locale.forLanguageTag("ru");
+
+    private ResourceBundleMessageSource messageSource;
+
+    private MessageCatalog messageCatalog;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.messageSource = new ResourceBundleMessageSource();
+        this.messageSource.setBasename("messages");
+        this.messageSource.setDefaultEncoding("UTF-8");
+        this.messageSource.setFallbackToSystemLocale(false);
+
+        this.messageCatalog = new MessageCatalog(this.messageSource, "messages", List.of(RU, Locale.ENGLISH));
+    }
+
+    @Benchmark
+    public String messageSource(){
+        return this.messageSource.getMessage("error.confirmation_code.not_valid", null, RU);
+    }
+
+    @Benchmark
+    public String messageCatalog(){
+        return this.messageCatalog.get("error.confirmation_code.not_valid", RU);
+    }
+
+    @Benchmark
+    public String messageCatalog_acceptLanguageRegion(){
+        return this.messageCatalog.get("error.confirmation_code.not_valid", Locale.US);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.stroy1click.confirmationcode.dto.UserDto;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.model.Role;
+import ru.stroy1click.confirmationcode.util.UserProjectionParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор ответа user-service на getByEmail: прежний путь (ObjectMapper в полный UserDto)
+ * против потокового разбора в UserProjection - для полного ответа (user-service без поддержки fields)
+ * и для ответа только с запрошенными полями. Аллокации: -Djmh.args="-prof gc".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserProjectionBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] fullResponse;
+
+    private byte[] projectedResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        UserDto user = UserDto.builder()
+                .id(1L)
+                .firstName("Ryan")
+                .lastName("Thompson")
+                .email("rayan_thompson@gmail.com")
+                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
+                .role(Role.ROLE_USER)
+                .emailConfirmed(false)
+                .build();
+        this.fullResponse = this.objectMapper.writeValueAsBytes(user);
+        this.projectedResponse = """
+                {"email":"rayan_thompson@gmail.com","emailConfirmed":false,"firstName":"Ryan"}"""
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public UserDto objectMapper_fullUserDto() throws IOException {
+        return this.objectMapper.readValue(new ByteArrayInputStream(this.fullResponse), UserDto.class);
+    }
+
+    @Benchmark
+    public UserProjection streaming_fullResponse() throws IOException {
+        return UserProjectionParser.parse(new ByteArrayInputStream(this.fullResponse));
+    }
+
+    @Benchmark
+    public UserProjection streaming_projectedResponse() throws IOException {
+        return UserProjectionParser.parse(new ByteArrayInputStream(this.projectedResponse));
+    }
+}
@@ -0,0 +1,82 @@
+package ru.stroy1click.confirmationcode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.validation.FieldError;
+import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка сообщения об ошибках валидации и разбор ответа 400 от внешнего сервиса вместе с выбросом исключения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationErrorUtilsBenchmark {
+
+    private static final byte[] PROBLEM_DETAIL = """
+            {"type":"about:blank","title":"Ошибка валидации","status":400,"detail":"Электронная почта должна быть валидной"}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private List<FieldError> fieldErrors;
+
+    @Setup
+    public void setUp(){
+        this.fieldErrors = List.of(
+                new FieldError("createConfirmationCodeRequest", "email", "Электронная почта должна быть валидной"),
+                new FieldError("createConfirmationCodeRequest", "confirmationCodeType", "Тип кода не может быть пустым")
+        );
+    }
+
+    @Benchmark
+    public String collectErrorsToString(){
+        return ValidationErrorUtils.collectErrorsToString(this.fieldErrors);
+    }
+
+    @Benchmark
+    public Object validateStatus_BadRequest() throws IOException {
+        try {
+            ValidationErrorUtils.validateStatus(new StubResponse(HttpStatus.BAD_REQUEST, PROBLEM_DETAIL));
+            return null;
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    private record StubResponse(HttpStatus status, byte[] body) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return this.status;
+        }
+
+        @Override
+        public String getStatusText() {
+            return this.status.getReasonPhrase();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(this.body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+    }
+}
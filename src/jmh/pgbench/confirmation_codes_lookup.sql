@@ -0,0 +1,13 @@
+-- Горячие запросы ConfirmationCodeRepository.
+-- pgbench -n -c 16 -j 4 -T 60 -r --log --log-prefix=lookup -D rows=3000000 -f confirmation_codes_lookup.sql
+-- p99 считается по файлам lookup.* (третья колонка - латентность в мкс).
+\set id random(1, :rows / 2)
+\set code random(1000000, 9999999)
+
+select exists(select 1 from confirmation_code.confirmation_codes
+              where type = 'EMAIL' and user_email = 'user' || :id || '@bench.stroy1click.ru');
+
+select id, code, expiration_date, type, user_email from confirmation_code.confirmation_codes
+where type = 'PASSWORD' and user_email = 'user' || :id || '@bench.stroy1click.ru';
+
+select count(*) from confirmation_code.confirmation_codes where code = :code;
@@ -0,0 +1,16 @@
+-- Наполняет confirmation_code.confirmation_codes несколькими миллионами строк для замеров.
+-- psql -v rows=3000000 -f confirmation_codes_seed.sql
+\if :{?rows}
+\else
+    \set rows 3000000
+\endif
+
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email)
+select 1000000 + (random() * 8999999)::int,
+       now() + (random() * interval '48 hours') - interval '24 hours',
+       case when i % 2 = 0 then 'EMAIL' else 'PASSWORD' end,
+       'user' || (i / 2) || '@bench.stroy1click.ru'
+from generate_series(1, :rows) as i
+on conflict do nothing;
+
+analyze confirmation_code.confirmation_codes;
@@ -2,9 +2,9 @@ package ru.stroy1click.confirmationcode;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@EnableAsync
+@EnableScheduling
 @SpringBootApplication
 public class Stroy1ClickConfirmationCodeServiceApplication {
 
@@ -1,8 +1,12 @@
 package ru.stroy1click.confirmationcode.client;
 
+import ru.stroy1click.confirmationcode.model.SendEmailBatchRequest;
+import ru.stroy1click.confirmationcode.model.SendEmailBatchResponse;
 import ru.stroy1click.confirmationcode.model.SendEmailRequest;
 
 public interface EmailClient {
 
     void sendEmail(SendEmailRequest sendEmailRequest);
+
+    SendEmailBatchResponse sendBatch(SendEmailBatchRequest sendEmailBatchRequest);
 }
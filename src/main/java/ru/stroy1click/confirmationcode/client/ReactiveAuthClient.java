@@ -0,0 +1,8 @@
+package ru.stroy1click.confirmationcode.client;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveAuthClient {
+
+    Mono<Void> logoutOnAllDevices(String email, String jwt);
+}
@@ -0,0 +1,15 @@
+package ru.stroy1click.confirmationcode.client;
+
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.model.ConfirmEmailRequest;
+import ru.stroy1click.confirmationcode.model.UserServiceUpdatePasswordRequest;
+
+public interface ReactiveUserClient {
+
+    Mono<Void> updateEmailConfirmedStatus(ConfirmEmailRequest confirmEmailRequest);
+
+    Mono<Void> updatePassword(UserServiceUpdatePasswordRequest request);
+
+    Mono<UserProjection> getByEmail(String email);
+}
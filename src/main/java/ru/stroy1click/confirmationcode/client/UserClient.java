@@ -1,6 +1,6 @@
 package ru.stroy1click.confirmationcode.client;
 
-import ru.stroy1click.confirmationcode.dto.UserDto;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
 import ru.stroy1click.confirmationcode.model.ConfirmEmailRequest;
 import ru.stroy1click.confirmationcode.model.UserServiceUpdatePasswordRequest;
 
@@ -10,5 +10,5 @@ public interface UserClient {
 
     void updatePassword(UserServiceUpdatePasswordRequest request);
 
-    UserDto getByEmail(String email);
+    UserProjection getByEmail(String email);
 }
@@ -0,0 +1,74 @@
+package ru.stroy1click.confirmationcode.client.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import ru.stroy1click.confirmationcode.client.UserClient;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.model.ConfirmEmailRequest;
+import ru.stroy1click.confirmationcode.model.UserServiceUpdatePasswordRequest;
+
+import java.time.Duration;
+
+/**
+ * Локальный кэш пользователей по email поверх UserClientImpl: повторные запросы "отправить код ещё раз"
+ * не ходят в user-service. Запись живёт недолго и сбрасывается, когда этот сервис сам меняет пользователя.
+ * Кэш стоит снаружи circuit breaker userClient и таймера confirmation_code.client, поэтому попадания в кэш
+ * не считаются успешными вызовами user-service и не разбавляют его метрики.
+ */
+@Primary
+@Profile("!reactive")
+@Service("userClient")
+public class CachingUserClient implements UserClient {
+
+    private final UserClient userClient;
+
+    private final Cache<String, UserProjection> userCache;
+
+    public CachingUserClient(@Qualifier("userClientImpl") UserClient userClient,
+                             @Value(value = "${confirmation-code.user-cache.maximum-size}") long maximumSize,
+                             @Value(value = "${confirmation-code.user-cache.ttl}") Duration ttl,
+                             MeterRegistry meterRegistry){
+        this.userClient = userClient;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.userCache, "userClient.getByEmail");
+    }
+
+    @Override
+    public void updateEmailConfirmedStatus(ConfirmEmailRequest confirmEmailRequest) {
+        try {
+            this.userClient.updateEmailConfirmedStatus(confirmEmailRequest);
+        } finally {
+            this.userCache.invalidate(confirmEmailRequest.getEmail());
+        }
+    }
+
+    @Override
+    public void updatePassword(UserServiceUpdatePasswordRequest request) {
+        try {
+            this.userClient.updatePassword(request);
+        } finally {
+            this.userCache.invalidate(request.getEmail());
+        }
+    }
+
+    @Override
+    public UserProjection getByEmail(String email) {
+        UserProjection cached = this.userCache.getIfPresent(email);
+        if (cached != null) return cached;
+
+        UserProjection user = this.userClient.getByEmail(email);
+        if (user != null) this.userCache.put(email, user);
+        return user;
+    }
+}
@@ -2,8 +2,9 @@ package ru.stroy1click.confirmationcode.client.impl;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
@@ -13,15 +14,14 @@ import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
 
 @Slf4j
 @Service
+@Profile("!reactive")
 @CircuitBreaker(name = "authClient")
 public class AuthClientImpl implements AuthClient {
 
     private final RestClient restClient;
 
-    public AuthClientImpl(@Value(value = "${url.auth}") String url){
-        this.restClient = RestClient.builder()
-                .baseUrl(url)
-                .build();
+    public AuthClientImpl(@Qualifier("authRestClient") RestClient restClient){
+        this.restClient = restClient;
     }
 
     @Override
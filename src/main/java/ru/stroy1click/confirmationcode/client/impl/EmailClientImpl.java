@@ -2,15 +2,18 @@ package ru.stroy1click.confirmationcode.client.impl;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import ru.stroy1click.confirmationcode.client.EmailClient;
 import ru.stroy1click.confirmationcode.exception.ServiceErrorResponseException;
 import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.exception.UnsupportedEndpointException;
+import ru.stroy1click.confirmationcode.model.SendEmailBatchRequest;
+import ru.stroy1click.confirmationcode.model.SendEmailBatchResponse;
 import ru.stroy1click.confirmationcode.model.SendEmailRequest;
 import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
 
@@ -21,14 +24,11 @@ public class EmailClientImpl implements EmailClient {
 
     private final RestClient restClient;
 
-    public EmailClientImpl(@Value(value = "${url.email}") String url){
-        this.restClient = RestClient.builder()
-                .baseUrl(url)
-                .build();
+    public EmailClientImpl(@Qualifier("emailRestClient") RestClient restClient){
+        this.restClient = restClient;
     }
 
     @Override
-    @Async("asyncTaskExecutor")
     public void sendEmail(SendEmailRequest sendEmailRequest) {
         log.info("sendEmail {}", sendEmailRequest);
         try {
@@ -46,4 +46,34 @@ public class EmailClientImpl implements EmailClient {
         }
     }
 
+    /**
+     * Отправляет пачку писем одним запросом. Email-service возвращает результат по каждому id из пачки.
+     * Ответ 404, 405 или 501 означает, что email-service не умеет принимать пачки: бросается UnsupportedEndpointException.
+     */
+    @Override
+    public SendEmailBatchResponse sendBatch(SendEmailBatchRequest sendEmailBatchRequest) {
+        log.info("sendBatch {} items", sendEmailBatchRequest.getItems().size());
+        try {
+            return this.restClient.post()
+                    .uri("/send/batch")
+                    .body(sendEmailBatchRequest)
+                    .retrieve()
+                    .onStatus(EmailClientImpl::isBatchUnsupported, (request, response) -> {
+                        throw new UnsupportedEndpointException();
+                    })
+                    .onStatus(HttpStatusCode::isError,(request, response) -> {
+                        ValidationErrorUtils.validateStatus(response);
+                    })
+                    .body(SendEmailBatchResponse.class);
+        } catch (ResourceAccessException e){
+            log.error("sendBatch error ", e);
+            throw new ServiceUnavailableException();
+        }
+    }
+
+    private static boolean isBatchUnsupported(HttpStatusCode statusCode){
+        return statusCode.value() == HttpStatus.NOT_FOUND.value()
+                || statusCode.value() == HttpStatus.METHOD_NOT_ALLOWED.value()
+                || statusCode.value() == HttpStatus.NOT_IMPLEMENTED.value();
+    }
 }
@@ -0,0 +1,49 @@
+package ru.stroy1click.confirmationcode.client.impl;
+
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.client.ReactiveAuthClient;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
+
+/**
+ * WebClient-версия AuthClientImpl для профиля reactive. Использует тот же circuit breaker authClient.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@CircuitBreaker(name = "authClient")
+public class ReactiveAuthClientImpl implements ReactiveAuthClient {
+
+    private final WebClient webClient;
+
+    public ReactiveAuthClientImpl(@Qualifier("authWebClient") WebClient webClient){
+        this.webClient = webClient;
+    }
+
+    @Override
+    public Mono<Void> logoutOnAllDevices(String email, String jwt) {
+        log.info("logoutOnAllDevices {}", email);
+        return this.webClient.delete()
+                .uri(uriBuilder -> uriBuilder.path("/logout-on-all-devices")
+                        .queryParam("email", email).build())
+                .header("Authorization", "Bearer " + jwt)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> ValidationErrorUtils.toException(response.statusCode(), body)))
+                .toBodilessEntity()
+                .onErrorMap(WebClientRequestException.class, e -> {
+                    log.error("logoutOnAllDevices error ", e);
+                    return new ServiceUnavailableException();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.stroy1click.confirmationcode.client.impl;
+
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.client.ReactiveUserClient;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.exception.ServiceErrorResponseException;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.model.ConfirmEmailRequest;
+import ru.stroy1click.confirmationcode.model.UserServiceUpdatePasswordRequest;
+import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
+
+/**
+ * WebClient-версия UserClientImpl для профиля reactive. Использует тот же circuit breaker userClient.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@CircuitBreaker(name = "userClient")
+public class ReactiveUserClientImpl implements ReactiveUserClient {
+
+    private final WebClient webClient;
+
+    public ReactiveUserClientImpl(@Qualifier("userWebClient") WebClient webClient){
+        this.webClient = webClient;
+    }
+
+    @Override
+    public Mono<Void> updateEmailConfirmedStatus(ConfirmEmailRequest email) {
+        log.info("updateEmailConfirmedStatus {}", email);
+        return this.webClient.patch()
+                .uri("/email-status")
+                .bodyValue(email)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> ValidationErrorUtils.toException(response.statusCode(), body)))
+                .toBodilessEntity()
+                .onErrorMap(WebClientRequestException.class, e -> {
+                    log.error("updateEmailConfirmedStatus error ", e);
+                    return new ServiceUnavailableException();
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Void> updatePassword(UserServiceUpdatePasswordRequest updatePasswordRequest) {
+        log.info("updatePassword {}", updatePasswordRequest);
+        return this.webClient.patch()
+                .uri("/password")
+                .bodyValue(updatePasswordRequest)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> ValidationErrorUtils.toException(response.statusCode(), body)))
+                .toBodilessEntity()
+                .onErrorMap(WebClientRequestException.class, e -> {
+                    log.error("updatePassword error ", e);
+                    return new ServiceUnavailableException();
+                })
+                .then();
+    }
+
+    /**
+     * Ответ без emailConfirmed отклоняется так же, как в UserClientImpl: по этому полю решается, можно ли отправлять код.
+     */
+    @Override
+    public Mono<UserProjection> getByEmail(String email) {
+        log.info("getUserByEmail {}", email);
+        return this.webClient.get()
+                .uri("/email?email={email}&fields={fields}", email, UserProjection.FIELDS)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> ValidationErrorUtils.toException(response.statusCode(), body)))
+                .bodyToMono(UserProjection.class)
+                .flatMap(user -> {
+                    if (user.emailConfirmed() != null) return Mono.just(user);
+
+                    log.error("getUserByEmail error: emailConfirmed is missing for {}", email);
+                    return Mono.<UserProjection>error(new ServiceErrorResponseException());
+                })
+                .onErrorMap(WebClientRequestException.class, e -> {
+                    log.error("getUserByEmail error", e);
+                    return new ServiceUnavailableException();
+                });
+    }
+}
@@ -1,32 +1,34 @@
 package ru.stroy1click.confirmationcode.client.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.springframework.web.client.ResourceAccessException;
 import ru.stroy1click.confirmationcode.exception.ServiceErrorResponseException;
 import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import ru.stroy1click.confirmationcode.client.UserClient;
-import ru.stroy1click.confirmationcode.dto.UserDto;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
 import ru.stroy1click.confirmationcode.exception.NotFoundException;
 import ru.stroy1click.confirmationcode.model.ConfirmEmailRequest;
 import ru.stroy1click.confirmationcode.model.UserServiceUpdatePasswordRequest;
+import ru.stroy1click.confirmationcode.util.UserProjectionParser;
 import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
 
 @Slf4j
 @Service
+@Profile("!reactive")
 @CircuitBreaker(name = "userClient")
 public class UserClientImpl implements UserClient {
 
     private final RestClient restClient;
 
-    public UserClientImpl(@Value(value = "${url.user}") String url){
-        this.restClient = RestClient.builder()
-                .baseUrl(url)
-                .build();
+    public UserClientImpl(@Qualifier("userRestClient") RestClient restClient){
+        this.restClient = restClient;
     }
 
     @Override
@@ -65,17 +67,28 @@ public class UserClientImpl implements UserClient {
         }
     }
 
+    /**
+     * Запрашивает у user-service только поля UserProjection (параметр fields) и разбирает ответ потоково,
+     * не создавая полный UserDto. Ответ, который не удалось разобрать (например, без emailConfirmed),
+     * считается ошибкой user-service, как и в ReactiveUserClientImpl.
+     */
     @Override
-    public UserDto getByEmail(String email) {
+    public UserProjection getByEmail(String email) {
         log.info("getUserByEmail {}", email);
         try {
             return this.restClient.get()
-                    .uri("/email?email={email}", email)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError,(request, response) -> {
-                        ValidationErrorUtils.validateStatus(response);
-                    })
-                    .body(UserDto.class);
+                    .uri("/email?email={email}&fields={fields}", email, UserProjection.FIELDS)
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode().isError()) {
+                            ValidationErrorUtils.validateStatus(response);
+                        }
+                        try {
+                            return UserProjectionParser.parse(response.getBody());
+                        } catch (JsonProcessingException e) {
+                            log.error("getUserByEmail error: unexpected user response for {}", email, e);
+                            throw new ServiceErrorResponseException();
+                        }
+                    });
         } catch (ResourceAccessException e){
             log.error("getUserByEmail error", e);
             throw new ServiceUnavailableException();
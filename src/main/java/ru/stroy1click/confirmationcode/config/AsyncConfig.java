@@ -1,23 +1,131 @@
 package ru.stroy1click.confirmationcode.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.stroy1click.confirmationcode.exception.ServiceOverloadedException;
 
-import java.util.concurrent.Executor;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Пулы потоков по типам задач. Для каждого пула публикуются метрики executor.* (размер очереди, активные потоки,
+ * выполненные задачи) с тегом name, время ожидания задачи в очереди confirmation_code.executor.wait
+ * и количество отклонённых задач confirmation_code.executor.rejected.
+ * В режиме виртуальных потоков (spring.threads.virtual.enabled) вместо пула используется SimpleAsyncTaskExecutor:
+ * каждая задача получает свой виртуальный поток, число одновременно выполняющихся задач ограничивает
+ * virtual-concurrency-limit. Сверх предела вызывающий поток ждёт освобождения места, поэтому rejection-policy,
+ * max-size и queue-capacity действуют только для платформенных потоков, как и метрики executor.*.
+ */
 @Configuration
-public class AsyncConfig {
+@EnableConfigurationProperties(ExecutorProperties.class)
+public class AsyncConfig implements SmartInitializingSingleton {
+
+    private final ExecutorProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean virtualThreads;
+
+    private final Map<String, ThreadPoolTaskExecutor> platformPools = new LinkedHashMap<>();
+
+    public AsyncConfig(ExecutorProperties properties, MeterRegistry meterRegistry,
+                       @Value(value = "${spring.threads.virtual.enabled:false}") boolean virtualThreads){
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Bean("emailTaskExecutor")
+    public AsyncTaskExecutor emailTaskExecutor(){
+        return createExecutor("email", this.properties.getEmail());
+    }
+
+    @Bean("downstreamTaskExecutor")
+    public AsyncTaskExecutor downstreamTaskExecutor(){
+        return createExecutor("downstream", this.properties.getDownstream());
+    }
+
+    /**
+     * Метрики executor.* привязываются после инициализации бинов: ThreadPoolExecutor создаётся
+     * в afterPropertiesSet пула, раньше его ещё нет.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        this.platformPools.forEach((name, taskExecutor) ->
+                new ExecutorServiceMetrics(taskExecutor.getThreadPoolExecutor(), name, Tags.empty()).bindTo(this.meterRegistry));
+    }
+
+    private AsyncTaskExecutor createExecutor(String name, ExecutorProperties.Pool pool){
+        String threadNamePrefix = name + "-task-";
+        Timer waitTimer = Timer.builder("confirmation_code.executor.wait")
+                .description("Время ожидания задачи в очереди пула")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(this.meterRegistry);
+        TaskDecorator waitRecorder = task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            };
+        };
+
+        if (this.virtualThreads) {
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            taskExecutor.setVirtualThreads(true);
+            taskExecutor.setConcurrencyLimit(pool.getVirtualConcurrencyLimit());
+            taskExecutor.setTaskDecorator(waitRecorder);
+            taskExecutor.setTaskTerminationTimeout(pool.getAwaitTermination().toMillis());
+            return taskExecutor;
+        }
+
+        Counter rejectedCounter = Counter.builder("confirmation_code.executor.rejected")
+                .description("Количество задач, отклонённых переполненным пулом")
+                .tag("name", name)
+                .tag("policy", pool.getRejectionPolicy().name())
+                .register(this.meterRegistry);
 
-    @Bean("asyncTaskExecutor")
-    public Executor asyncTaskExecutor(){
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
-        taskExecutor.setCorePoolSize(4);
-        taskExecutor.setQueueCapacity(150);
-        taskExecutor.setMaxPoolSize(5);
-        taskExecutor.setThreadNamePrefix("AsyncTaskThread-");
-        taskExecutor.initialize();
+        taskExecutor.setCorePoolSize(pool.getCoreSize());
+        taskExecutor.setMaxPoolSize(pool.getMaxSize());
+        taskExecutor.setQueueCapacity(pool.getQueueCapacity());
+        taskExecutor.setKeepAliveSeconds((int) pool.getKeepAlive().toSeconds());
+        taskExecutor.setThreadNamePrefix(threadNamePrefix);
+        taskExecutor.setTaskDecorator(waitRecorder);
+        taskExecutor.setRejectedExecutionHandler(rejectionHandler(pool.getRejectionPolicy(), rejectedCounter));
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        taskExecutor.setAwaitTerminationMillis(pool.getAwaitTermination().toMillis());
+        this.platformPools.put(name, taskExecutor);
         return taskExecutor;
     }
 
+    private static RejectedExecutionHandler rejectionHandler(ExecutorProperties.RejectionPolicy policy,
+                                                             Counter rejectedCounter){
+        RejectedExecutionHandler handler = switch (policy) {
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case SHED -> (task, executor) -> {
+                throw new ServiceOverloadedException();
+            };
+            case SPILL -> new ThreadPoolExecutor.AbortPolicy();
+        };
+        return (task, executor) -> {
+            rejectedCounter.increment();
+            handler.rejectedExecution(task, executor);
+        };
+    }
 }
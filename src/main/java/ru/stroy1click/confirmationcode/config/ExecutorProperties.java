@@ -0,0 +1,49 @@
+package ru.stroy1click.confirmationcode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки пулов потоков по типам задач: email - доставка писем из outbox, downstream - вызовы внешних сервисов.
+ */
+@Data
+@ConfigurationProperties(prefix = "confirmation-code.executors")
+public class ExecutorProperties {
+
+    private Pool email = new Pool();
+
+    private Pool downstream = new Pool();
+
+    @Data
+    public static class Pool {
+
+        private int coreSize = 4;
+
+        private int maxSize = 8;
+
+        private int queueCapacity = 100;
+
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        private Duration awaitTermination = Duration.ofSeconds(30);
+
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+
+        /**
+         * Предел одновременно выполняющихся задач в режиме виртуальных потоков.
+         */
+        private int virtualConcurrencyLimit = 100;
+    }
+
+    /**
+     * CALLER_RUNS - задача выполняется в вызывающем потоке, что замедляет источник задач.
+     * SHED - задача отклоняется с ServiceOverloadedException, клиент получает 503.
+     * SPILL - задача отклоняется с TaskRejectedException, и вызывающий код оставляет её в долговременной очереди
+     * (для email - в outbox-таблице).
+     */
+    public enum RejectionPolicy {
+        CALLER_RUNS, SHED, SPILL
+    }
+}
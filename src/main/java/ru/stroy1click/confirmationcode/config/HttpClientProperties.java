@@ -0,0 +1,34 @@
+package ru.stroy1click.confirmationcode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки пулов HTTP-соединений к user-, auth- и email-service. У каждого сервиса свой пул.
+ */
+@Data
+@ConfigurationProperties(prefix = "confirmation-code.http-client")
+public class HttpClientProperties {
+
+    private Pool user = new Pool();
+
+    private Pool auth = new Pool();
+
+    private Pool email = new Pool();
+
+    @Data
+    public static class Pool {
+
+        private int maxConnections = 50;
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        private Duration poolAcquireTimeout = Duration.ofSeconds(1);
+
+        private Duration keepAlive = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.stroy1click.confirmationcode.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ограничения частоты запросов по почте и по IP клиента. Ключ в limits - имя из аннотации @KeyedRateLimit.
+ */
+@Data
+@ConfigurationProperties(prefix = "confirmation-code.rate-limit")
+public class RateLimitProperties {
+
+    private int maxKeys = 100_000;
+
+    /**
+     * Время, через которое неиспользуемая корзина удаляется из памяти. Должно быть не меньше самого большого refill-period.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(15);
+
+    private Map<String, Limit> limits = new HashMap<>();
+
+    @Data
+    public static class Limit {
+
+        private Bandwidth email;
+
+        private Bandwidth ip;
+    }
+
+    /**
+     * Корзина на capacity запросов, которая полностью восстанавливается за refill-period.
+     */
+    @Data
+    public static class Bandwidth {
+
+        private int capacity;
+
+        private Duration refillPeriod;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.stroy1click.confirmationcode.config;
+
+import io.netty.channel.ChannelOption;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcConnectionDetails;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Инфраструктура профиля reactive: пул R2DBC-соединений к той же базе, WebClient'ы к внешним сервисам
+ * и фильтр, публикующий ServerWebExchange в контексте Reactor.
+ * Автоконфигурация R2DBC отключена глобально, поэтому ConnectionFactory собирается здесь:
+ * из R2dbcConnectionDetails (Testcontainers) или из настроек spring.r2dbc.
+ * Метрики пула R2DBC публикует actuator (r2dbc.pool.*), метрики пулов Netty - reactor.netty.connection.provider.*.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveConfig implements DisposableBean {
+
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    private final ObjectProvider<WebClient.Builder> webClientBuilder;
+
+    private final HttpClientProperties properties;
+
+    public ReactiveConfig(ObjectProvider<WebClient.Builder> webClientBuilder, HttpClientProperties properties){
+        this.webClientBuilder = webClientBuilder;
+        this.properties = properties;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(R2dbcProperties r2dbcProperties,
+                                            ObjectProvider<R2dbcConnectionDetails> connectionDetails){
+        ConnectionFactoryOptions options = connectionDetails
+                .getIfAvailable(() -> () -> fromProperties(r2dbcProperties))
+                .getConnectionFactoryOptions();
+
+        R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("confirmation-code");
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getInitialSize()).to(builder::initialSize);
+        map.from(pool.getMaxSize()).to(builder::maxSize);
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getValidationQuery()).to(builder::validationQuery);
+        return new ConnectionPool(builder.build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionPool connectionFactory){
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * Кладёт ServerWebExchange в контекст Reactor: KeyedRateLimitAspect берёт из него IP клиента.
+     */
+    @Bean
+    public ServerWebExchangeContextFilter serverWebExchangeContextFilter(){
+        return new ServerWebExchangeContextFilter();
+    }
+
+    @Bean
+    public WebClient userWebClient(@Value(value = "${url.user}") String url){
+        return createWebClient("user", url, this.properties.getUser());
+    }
+
+    @Bean
+    public WebClient authWebClient(@Value(value = "${url.auth}") String url){
+        return createWebClient("auth", url, this.properties.getAuth());
+    }
+
+    @Override
+    public void destroy() {
+        this.connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    private WebClient createWebClient(String name, String baseUrl, HttpClientProperties.Pool pool){
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireTimeout(pool.getPoolAcquireTimeout())
+                .maxIdleTime(pool.getKeepAlive())
+                .metrics(true)
+                .build();
+        this.connectionProviders.add(connectionProvider);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) pool.getConnectTimeout().toMillis())
+                .responseTimeout(pool.getReadTimeout());
+
+        return this.webClientBuilder.getIfAvailable(WebClient::builder).clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    private static ConnectionFactoryOptions fromProperties(R2dbcProperties r2dbcProperties){
+        ConnectionFactoryOptions.Builder builder = ConnectionFactoryOptions.parse(r2dbcProperties.getUrl()).mutate();
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(r2dbcProperties.getUsername()).to(username -> builder.option(ConnectionFactoryOptions.USER, username));
+        map.from(r2dbcProperties.getPassword()).to(password -> builder.option(ConnectionFactoryOptions.PASSWORD, password));
+        return builder.build();
+    }
+}
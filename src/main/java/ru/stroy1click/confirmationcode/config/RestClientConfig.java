@@ -0,0 +1,96 @@
+package ru.stroy1click.confirmationcode.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * RestClient'ы для внешних сервисов поверх Apache HttpClient с отдельным пулом keep-alive соединений на каждый сервис.
+ * Метрики пула (leased, pending, available) публикуются как httpcomponents.httpclient.pool.* с тегом httpclient.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class RestClientConfig implements DisposableBean {
+
+    private final List<CloseableHttpClient> httpClients = new CopyOnWriteArrayList<>();
+
+    private final ObjectProvider<RestClient.Builder> restClientBuilder;
+
+    private final HttpClientProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    public RestClientConfig(ObjectProvider<RestClient.Builder> restClientBuilder, HttpClientProperties properties,
+                            MeterRegistry meterRegistry){
+        this.restClientBuilder = restClientBuilder;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public RestClient userRestClient(@Value(value = "${url.user}") String url){
+        return createRestClient("user", url, this.properties.getUser());
+    }
+
+    @Bean
+    public RestClient authRestClient(@Value(value = "${url.auth}") String url){
+        return createRestClient("auth", url, this.properties.getAuth());
+    }
+
+    @Bean
+    public RestClient emailRestClient(@Value(value = "${url.email}") String url){
+        return createRestClient("email", url, this.properties.getEmail());
+    }
+
+    @Override
+    public void destroy() {
+        this.httpClients.forEach(httpClient -> httpClient.close(CloseMode.GRACEFUL));
+    }
+
+    private RestClient createRestClient(String name, String baseUrl, HttpClientProperties.Pool pool){
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxConnections())
+                .setMaxConnPerRoute(pool.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(pool.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(pool.getReadTimeout()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(this.meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(pool.getPoolAcquireTimeout()))
+                        .setResponseTimeout(Timeout.of(pool.getReadTimeout()))
+                        .setConnectionKeepAlive(TimeValue.of(pool.getKeepAlive()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(pool.getKeepAlive()))
+                .build();
+        this.httpClients.add(httpClient);
+
+        return this.restClientBuilder.getIfAvailable(RestClient::builder).clone()
+                .baseUrl(baseUrl)
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+}
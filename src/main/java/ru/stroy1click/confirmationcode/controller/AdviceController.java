@@ -3,104 +3,81 @@ package ru.stroy1click.confirmationcode.controller;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import ru.stroy1click.confirmationcode.exception.*;
+import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
 
 import java.util.Locale;
 
+/**
+ * Locale - язык клиента из Accept-Language, его разрешают и Spring MVC, и WebFlux.
+ * Тексты берутся из MessageCatalog через ConfirmationCodeResponses.
+ */
 @RestControllerAdvice
 @RequiredArgsConstructor
 public class AdviceController {
 
-    private final MessageSource messageSource;
+    private final ConfirmationCodeResponses confirmationCodeResponses;
 
     @ExceptionHandler(NotFoundException.class)
-    public ProblemDetail handleException(NotFoundException exception){
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-                HttpStatus.NOT_FOUND, exception.getMessage()
-        );
-        problemDetail.setTitle(
-                this.messageSource.getMessage(
-                        "error.title.not_found",
-                        null,
-                        Locale.getDefault()
-                )
-        );
-        problemDetail.setDetail(exception.getMessage());
-        return problemDetail;
+    public ProblemDetail handleException(NotFoundException exception, Locale locale){
+        return this.confirmationCodeResponses.problemDetail(HttpStatus.NOT_FOUND, exception.getMessage(), locale);
     }
 
     @ExceptionHandler(ValidationException.class)
-    public ProblemDetail handleException(ValidationException exception){
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-                HttpStatus.BAD_REQUEST, exception.getMessage()
-        );
-        problemDetail.setTitle(
-                this.messageSource.getMessage(
-                        "error.title.validation",
-                        null,
-                        Locale.getDefault()
-                )
-        );
-        problemDetail.setDetail(exception.getMessage());
-        return problemDetail;
+    public ProblemDetail handleException(ValidationException exception, Locale locale){
+        return this.confirmationCodeResponses.problemDetail(HttpStatus.BAD_REQUEST, exception.getMessage(), locale);
+    }
+
+    /**
+     * Ошибки валидации тела запроса в профиле reactive: WebFlux не передаёт BindingResult в контроллер.
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ProblemDetail handleException(WebExchangeBindException exception, Locale locale){
+        return this.confirmationCodeResponses.problemDetail(HttpStatus.BAD_REQUEST,
+                ValidationErrorUtils.collectErrorsToString(exception.getFieldErrors()), locale);
     }
 
     @ExceptionHandler(RequestNotPermitted.class)
-    public ProblemDetail handleException(RequestNotPermitted exception){
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-                HttpStatus.TOO_MANY_REQUESTS,
-                this.messageSource.getMessage(
-                        "error.details.too_many_requests",
-                        null,
-                        Locale.getDefault()
-                )
-        );
-        problemDetail.setTitle(this.messageSource.getMessage(
-                "error.title.too_many_requests",
-                null,
-                Locale.getDefault()
-        ));
-        return problemDetail;
+    public ProblemDetail handleException(RequestNotPermitted exception, Locale locale){
+        return this.confirmationCodeResponses.problemDetail(HttpStatus.TOO_MANY_REQUESTS,
+                "error.title.too_many_requests", "error.details.too_many_requests", locale);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ProblemDetail> handleException(TooManyRequestsException exception, Locale locale){
+        ProblemDetail problemDetail = this.confirmationCodeResponses.problemDetail(HttpStatus.TOO_MANY_REQUESTS,
+                "error.title.too_many_requests", "error.details.too_many_requests", locale);
+        long retryAfterSeconds = Math.max(1, (exception.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(problemDetail);
     }
 
     @ExceptionHandler(CallNotPermittedException.class)
-    public ProblemDetail handleException(CallNotPermittedException exception){
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-                HttpStatus.SERVICE_UNAVAILABLE,
-                this.messageSource.getMessage(
-                        "error.details.service_unavailable",
-                        null,
-                        Locale.getDefault()
-                )
-        );
-        problemDetail.setTitle(this.messageSource.getMessage(
-                "error.title.service_unavailable",
-                null,
-                Locale.getDefault()
-        ));
-        return problemDetail;
+    public ProblemDetail handleException(CallNotPermittedException exception, Locale locale){
+        return this.confirmationCodeResponses.problemDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "error.title.service_unavailable", "error.details.service_unavailable", locale);
     }
 
     @ExceptionHandler(ServiceUnavailableException.class)
-    public ProblemDetail handleException(ServiceUnavailableException exception){
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-                HttpStatus.SERVICE_UNAVAILABLE,
-                this.messageSource.getMessage(
-                        "error.details.service_unavailable",
-                        null,
-                        Locale.getDefault()
-                )
-        );
-        problemDetail.setTitle(this.messageSource.getMessage(
-                "error.title.service_unavailable",
-                null,
-                Locale.getDefault()
-        ));
-        return problemDetail;
+    public ProblemDetail handleException(ServiceUnavailableException exception, Locale locale){
+        return this.confirmationCodeResponses.problemDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "error.title.service_unavailable", "error.details.service_unavailable", locale);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ProblemDetail> handleException(ServiceOverloadedException exception, Locale locale){
+        ProblemDetail problemDetail = this.confirmationCodeResponses.problemDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "error.title.service_overloaded", "error.details.service_overloaded", locale);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(problemDetail);
     }
 }
@@ -5,7 +5,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
@@ -13,12 +13,14 @@ import ru.stroy1click.confirmationcode.exception.ValidationException;
 import ru.stroy1click.confirmationcode.model.CodeVerificationRequest;
 import ru.stroy1click.confirmationcode.model.CreateConfirmationCodeRequest;
 import ru.stroy1click.confirmationcode.model.UpdatePasswordRequest;
+import ru.stroy1click.confirmationcode.ratelimit.KeyedRateLimit;
 import ru.stroy1click.confirmationcode.service.ConfirmationCodeService;
 import ru.stroy1click.confirmationcode.util.ValidationErrorUtils;
 
 import java.util.Locale;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/confirmation-codes")
 @RequiredArgsConstructor
 @RateLimiter(name = "confirmationCodeLimiter")
@@ -27,81 +29,52 @@ public class ConfirmationCodeController {
 
     private final ConfirmationCodeService confirmationCodeService;
 
-    private final MessageSource messageSource;
+    private final ConfirmationCodeResponses confirmationCodeResponses;
 
     @PostMapping("/email/verify")
+    @KeyedRateLimit("verify-email")
     @Operation(summary = "Подтверждение почты пользователя")
-    public ResponseEntity<String> verifyEmail(@RequestBody @Valid CodeVerificationRequest codeVerificationRequest,
-                                          BindingResult bindingResult){
+    public ResponseEntity<Object> verifyEmail(@RequestBody @Valid CodeVerificationRequest codeVerificationRequest,
+                                          BindingResult bindingResult, Locale locale){
         if(bindingResult.hasFieldErrors()) throw new ValidationException(ValidationErrorUtils.collectErrorsToString(
                 bindingResult.getFieldErrors()
         ));
 
-        this.confirmationCodeService.verifyEmail(codeVerificationRequest);
-
-        return ResponseEntity.ok(
-                this.messageSource.getMessage(
-                        "info.confirmation_code.email.confirmed",
-                        null,
-                        Locale.getDefault()
-                )
-        );
+        return this.confirmationCodeResponses.toResponse(this.confirmationCodeService.verifyEmail(codeVerificationRequest), locale);
     }
 
     @PostMapping("/password-reset")
     @Operation(summary = "Обновление пароля")
-    public ResponseEntity<String> updatePassword(@RequestBody @Valid UpdatePasswordRequest updatePasswordRequest,
-                                                 BindingResult bindingResult){
+    public ResponseEntity<Object> updatePassword(@RequestBody @Valid UpdatePasswordRequest updatePasswordRequest,
+                                                 BindingResult bindingResult, Locale locale){
         if(bindingResult.hasFieldErrors()) throw new ValidationException(ValidationErrorUtils.collectErrorsToString(
                 bindingResult.getFieldErrors()
         ));
 
-        this.confirmationCodeService.updatePassword(updatePasswordRequest);
-
-        return ResponseEntity.ok(
-                this.messageSource.getMessage(
-                        "info.password.successfully_updated",
-                        null,
-                        Locale.getDefault()
-                )
-        );
+        return this.confirmationCodeResponses.toResponse(this.confirmationCodeService.updatePassword(updatePasswordRequest), locale);
     }
 
     @PostMapping("/regeneration")
+    @KeyedRateLimit("recreate")
     @Operation(summary = "Пересоздание кода подтверждения и отправка его по почте пользователю")
-    public ResponseEntity<String> recreate(@RequestBody @Valid CreateConfirmationCodeRequest codeRequest,
-                                           BindingResult bindingResult){
+    public ResponseEntity<Object> recreate(@RequestBody @Valid CreateConfirmationCodeRequest codeRequest,
+                                           BindingResult bindingResult, Locale locale){
         if(bindingResult.hasFieldErrors()) throw new ValidationException(ValidationErrorUtils.collectErrorsToString(
                 bindingResult.getFieldErrors()
         ));
 
-       this.confirmationCodeService.recreate(codeRequest);
-
-        return ResponseEntity.ok(
-                this.messageSource.getMessage(
-                        "info.confirmation_code.sent",
-                        null,
-                        Locale.getDefault()
-                )
-        );
+        return this.confirmationCodeResponses.toResponse(this.confirmationCodeService.recreate(codeRequest), locale);
     }
 
     @PostMapping
+    @KeyedRateLimit("create")
     @Operation(summary = "Создать новый код подтверждения")
-    public ResponseEntity<String> create(@RequestBody @Valid CreateConfirmationCodeRequest codeRequest,
-                                         BindingResult bindingResult){
+    public ResponseEntity<Object> create(@RequestBody @Valid CreateConfirmationCodeRequest codeRequest,
+                                         BindingResult bindingResult, Locale locale){
         if(bindingResult.hasFieldErrors()) throw new ValidationException(ValidationErrorUtils.collectErrorsToString(
                 bindingResult.getFieldErrors()
         ));
 
-        this.confirmationCodeService.create(codeRequest);
-
-        return ResponseEntity.ok(
-                this.messageSource.getMessage(
-                        "info.confirmation_code.sent",
-                        null,
-                        Locale.getDefault()
-                )
-        );
+        return this.confirmationCodeResponses.toResponse(this.confirmationCodeService.create(codeRequest), locale);
     }
 }
@@ -0,0 +1,70 @@
+package ru.stroy1click.confirmationcode.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.message.MessageCatalog;
+import ru.stroy1click.confirmationcode.model.ConfirmationCodeOutcome;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ответы API по ConfirmationCodeOutcome и ProblemDetail для ошибок.
+ * Общий для контроллеров и AdviceController, поэтому отказ, вернувшийся значением, и тот же отказ,
+ * пришедший исключением (например, 400 от user-service), выглядят для клиента одинаково.
+ * Ответы об успехе неизменяемы и собираются заранее для каждой локали из MessageCatalog.
+ * ProblemDetail создаётся на каждый запрос из готовых строк: Spring дописывает в него instance (путь запроса),
+ * поэтому общий экземпляр делить между запросами нельзя.
+ */
+@Component
+public class ConfirmationCodeResponses {
+
+    private final MessageCatalog messageCatalog;
+
+    private final Map<Locale, Map<ConfirmationCodeOutcome, ResponseEntity<Object>>> successResponses = new HashMap<>();
+
+    public ConfirmationCodeResponses(MessageCatalog messageCatalog){
+        this.messageCatalog = messageCatalog;
+
+        for (Locale locale : messageCatalog.getSupportedLocales()) {
+            Map<ConfirmationCodeOutcome, ResponseEntity<Object>> responses = new EnumMap<>(ConfirmationCodeOutcome.class);
+            for (ConfirmationCodeOutcome outcome : ConfirmationCodeOutcome.values()) {
+                if (outcome.isSuccess()) {
+                    responses.put(outcome, ResponseEntity.ok(messageCatalog.get(outcome.getMessageKey(), locale)));
+                }
+            }
+            this.successResponses.put(locale, responses);
+        }
+    }
+
+    public ResponseEntity<Object> toResponse(ConfirmationCodeOutcome outcome, Locale locale){
+        Locale resolved = this.messageCatalog.resolve(locale);
+        if (outcome.isSuccess()) return this.successResponses.get(resolved).get(outcome);
+
+        return ResponseEntity.status(outcome.getStatus())
+                .body(problemDetail(outcome.getStatus(), this.messageCatalog.get(outcome.getMessageKey(), resolved), resolved));
+    }
+
+    /**
+     * ProblemDetail 400/404 с текстом, пришедшим извне (ошибки валидации тела, ответ внешнего сервиса).
+     */
+    public ProblemDetail problemDetail(HttpStatus status, String detail, Locale locale){
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, detail);
+        problemDetail.setTitle(this.messageCatalog.get(
+                status == HttpStatus.NOT_FOUND ? "error.title.not_found" : "error.title.validation", locale));
+        return problemDetail;
+    }
+
+    /**
+     * ProblemDetail, у которого и заголовок, и текст - фиксированные сообщения каталога.
+     */
+    public ProblemDetail problemDetail(HttpStatus status, String titleKey, String detailKey, Locale locale){
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, this.messageCatalog.get(detailKey, locale));
+        problemDetail.setTitle(this.messageCatalog.get(titleKey, locale));
+        return problemDetail;
+    }
+}
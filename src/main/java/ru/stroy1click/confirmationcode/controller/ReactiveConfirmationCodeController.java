@@ -0,0 +1,70 @@
+package ru.stroy1click.confirmationcode.controller;
+
+import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.model.CodeVerificationRequest;
+import ru.stroy1click.confirmationcode.model.CreateConfirmationCodeRequest;
+import ru.stroy1click.confirmationcode.model.UpdatePasswordRequest;
+import ru.stroy1click.confirmationcode.ratelimit.KeyedRateLimit;
+import ru.stroy1click.confirmationcode.service.ReactiveConfirmationCodeService;
+
+import java.util.Locale;
+
+/**
+ * Тот же API, что ConfirmationCodeController, на WebFlux. Ошибки валидации тела приходят
+ * как WebExchangeBindException и превращаются в ProblemDetail в AdviceController.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/confirmation-codes")
+@RequiredArgsConstructor
+@RateLimiter(name = "confirmationCodeLimiter")
+@Tag(name = "ConfirmationCode Controller", description = "Создание и отправка кода подтверждения пользователю")
+public class ReactiveConfirmationCodeController {
+
+    private final ReactiveConfirmationCodeService confirmationCodeService;
+
+    private final ConfirmationCodeResponses confirmationCodeResponses;
+
+    @PostMapping("/email/verify")
+    @KeyedRateLimit("verify-email")
+    @Operation(summary = "Подтверждение почты пользователя")
+    public Mono<ResponseEntity<Object>> verifyEmail(@RequestBody @Valid CodeVerificationRequest codeVerificationRequest,
+                                                    Locale locale){
+        return this.confirmationCodeService.verifyEmail(codeVerificationRequest)
+                .map(outcome -> this.confirmationCodeResponses.toResponse(outcome, locale));
+    }
+
+    @PostMapping("/password-reset")
+    @Operation(summary = "Обновление пароля")
+    public Mono<ResponseEntity<Object>> updatePassword(@RequestBody @Valid UpdatePasswordRequest updatePasswordRequest,
+                                                       Locale locale){
+        return this.confirmationCodeService.updatePassword(updatePasswordRequest)
+                .map(outcome -> this.confirmationCodeResponses.toResponse(outcome, locale));
+    }
+
+    @PostMapping("/regeneration")
+    @KeyedRateLimit("recreate")
+    @Operation(summary = "Пересоздание кода подтверждения и отправка его по почте пользователю")
+    public Mono<ResponseEntity<Object>> recreate(@RequestBody @Valid CreateConfirmationCodeRequest codeRequest,
+                                                 Locale locale){
+        return this.confirmationCodeService.recreate(codeRequest)
+                .map(outcome -> this.confirmationCodeResponses.toResponse(outcome, locale));
+    }
+
+    @PostMapping
+    @KeyedRateLimit("create")
+    @Operation(summary = "Создать новый код подтверждения")
+    public Mono<ResponseEntity<Object>> create(@RequestBody @Valid CreateConfirmationCodeRequest codeRequest,
+                                               Locale locale){
+        return this.confirmationCodeService.create(codeRequest)
+                .map(outcome -> this.confirmationCodeResponses.toResponse(outcome, locale));
+    }
+}
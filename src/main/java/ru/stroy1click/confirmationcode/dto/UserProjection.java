@@ -0,0 +1,25 @@
+package ru.stroy1click.confirmationcode.dto;
+
+/**
+ * Часть пользователя, которая нужна этому сервису: проверка подтверждения почты и данные для письма.
+ * Хэш пароля, роль и остальные поля UserDto из user-service сюда не попадают.
+ */
+public record UserProjection(String email, Boolean emailConfirmed, String firstName) {
+
+    /**
+     * Значение параметра fields для user-service: какие поля пользователя вернуть.
+     */
+    public static final String FIELDS = "email,emailConfirmed,firstName";
+
+    /**
+     * Пользователь в формате UserDto, который email-service принимает в SendEmailRequest.
+     * Заполняются только поля проекции, хэш пароля и роль в email-service не передаются.
+     */
+    public UserDto toUserDto(){
+        return UserDto.builder()
+                .email(this.email)
+                .emailConfirmed(this.emailConfirmed)
+                .firstName(this.firstName)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.stroy1click.confirmationcode.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.stroy1click.confirmationcode.model.OutboxStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Builder
+@Table(schema = "confirmation_code", name = "email_outbox")
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String payload;
+
+    @Enumerated(value = EnumType.STRING)
+    private OutboxStatus status;
+
+    private Integer attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+}
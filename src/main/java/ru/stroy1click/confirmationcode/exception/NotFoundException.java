@@ -1,8 +1,11 @@
 package ru.stroy1click.confirmationcode.exception;
 
+/**
+ * Стек не заполняется: это ожидаемый исход, который AdviceController превращает в 404.
+ */
 public class NotFoundException extends RuntimeException {
 
     public NotFoundException(String message){
-        super(message);
+        super(message, null, false, false);
     }
 }
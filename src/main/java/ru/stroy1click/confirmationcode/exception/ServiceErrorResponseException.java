@@ -1,8 +1,11 @@
 package ru.stroy1click.confirmationcode.exception;
 
+/**
+ * Стек не заполняется: исключение создаётся по ответу внешнего сервиса, место создания всегда известно.
+ */
 public class ServiceErrorResponseException extends RuntimeException {
 
     public ServiceErrorResponseException() {
-        super();
+        super(null, null, false, false);
     }
 }
@@ -0,0 +1,11 @@
+package ru.stroy1click.confirmationcode.exception;
+
+/**
+ * Стек не заполняется: исключение бросается при отказе пула под нагрузкой, где лишняя работа особенно дорога.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    public ServiceOverloadedException(){
+        super(null, null, false, false);
+    }
+}
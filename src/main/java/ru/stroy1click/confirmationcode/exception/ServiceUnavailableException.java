@@ -1,8 +1,11 @@
 package ru.stroy1click.confirmationcode.exception;
 
+/**
+ * Стек не заполняется: исходная ошибка соединения логируется клиентом, а это исключение только несёт 503.
+ */
 public class ServiceUnavailableException extends RuntimeException {
 
     public ServiceUnavailableException(){
-        super();
+        super(null, null, false, false);
     }
 }
@@ -0,0 +1,20 @@
+package ru.stroy1click.confirmationcode.exception;
+
+import java.time.Duration;
+
+/**
+ * Стек не заполняется: исключение бросается на каждый отклонённый лимитером запрос.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(Duration retryAfter){
+        super(null, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return this.retryAfter;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.stroy1click.confirmationcode.exception;
+
+/**
+ * Внешний сервис не поддерживает вызванный endpoint (ответ 404, 405 или 501), например, пакетную отправку писем.
+ * Стек не заполняется: вызывающий код переходит на другой endpoint, исключение только сообщает об этом.
+ */
+public class UnsupportedEndpointException extends RuntimeException {
+
+    public UnsupportedEndpointException(){
+        super(null, null, false, false);
+    }
+}
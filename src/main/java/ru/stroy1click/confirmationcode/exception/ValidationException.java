@@ -1,9 +1,13 @@
 package ru.stroy1click.confirmationcode.exception;
 
+/**
+ * Стек не заполняется: это ожидаемый исход (в том числе 400 от внешних сервисов), который AdviceController
+ * превращает в ProblemDetail.
+ */
 public class ValidationException extends RuntimeException {
 
     public ValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
 }
@@ -0,0 +1,132 @@
+package ru.stroy1click.confirmationcode.generator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Генератор кодов подтверждения на SecureRandom.
+ * Коды заранее генерирует фоновый поток и раскладывает по полосам (stripes). Поток запроса берёт код из полосы,
+ * выбранной по id потока, под коротким замком этой полосы, поэтому запросы не конкурируют за общий seed,
+ * а дорогой SecureRandom не вызывается на пути запроса.
+ * У каждой полосы два буфера: текущий и запасной. Исчерпав текущий, полоса переключается на запасной
+ * и ставит фоновому потоку задачу заполнить следующий. Если запасной ещё не готов, код генерируется сразу
+ * (confirmation_code.code_generator.fallback).
+ */
+@Component
+public class ConfirmationCodeGenerator implements DisposableBean {
+
+    /**
+     * Диапазон кодов [MIN_CODE, MAX_CODE), как у прежнего random.nextInt(1_000_000, 9_999_999).
+     */
+    public static final int MIN_CODE = 1_000_000;
+
+    public static final int MAX_CODE = 9_999_999;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    private final int bufferSize;
+
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("code-generator-refill").daemon().factory());
+
+    private final Counter fallbackCounter;
+
+    public ConfirmationCodeGenerator(MeterRegistry meterRegistry,
+                                     @Value(value = "${confirmation-code.code-generator.buffer-size}") int bufferSize){
+        this.bufferSize = bufferSize;
+        this.stripes = new Stripe[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1)];
+        this.mask = this.stripes.length - 1;
+        this.fallbackCounter = meterRegistry.counter("confirmation_code.code_generator.fallback");
+
+        for (int i = 0; i < this.stripes.length; i++) {
+            Stripe stripe = new Stripe(generate(bufferSize));
+            this.stripes[i] = stripe;
+            synchronized (stripe) {
+                requestRefill(stripe);
+            }
+        }
+    }
+
+    /**
+     * @return случайный код из диапазона [MIN_CODE, MAX_CODE).
+     */
+    public int nextCode(){
+        Stripe stripe = this.stripes[(int) Thread.currentThread().threadId() & this.mask];
+        synchronized (stripe) {
+            if (stripe.position == stripe.codes.length && stripe.spare != null) {
+                stripe.codes = stripe.spare;
+                stripe.spare = null;
+                stripe.position = 0;
+                requestRefill(stripe);
+            }
+            if (stripe.position < stripe.codes.length) {
+                return stripe.codes[stripe.position++];
+            }
+        }
+
+        this.fallbackCounter.increment();
+        return this.secureRandom.nextInt(MIN_CODE, MAX_CODE);
+    }
+
+    @Override
+    public void destroy() {
+        this.refillExecutor.shutdownNow();
+    }
+
+    /**
+     * Вызывается под замком полосы. Пока у полосы нет запасного буфера, задача на его заполнение уже стоит в очереди.
+     */
+    private void requestRefill(Stripe stripe){
+        if (stripe.refillRequested) return;
+
+        stripe.refillRequested = true;
+        try {
+            this.refillExecutor.execute(() -> refill(stripe));
+        } catch (RejectedExecutionException e) {
+            // контекст закрывается, полоса дальше работает через генерацию на месте
+        }
+    }
+
+    private void refill(Stripe stripe){
+        int[] codes = generate(this.bufferSize);
+        synchronized (stripe) {
+            stripe.spare = codes;
+            stripe.refillRequested = false;
+        }
+    }
+
+    private int[] generate(int size){
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = this.secureRandom.nextInt(MIN_CODE, MAX_CODE);
+        }
+        return codes;
+    }
+
+    private static final class Stripe {
+
+        private int[] codes;
+
+        private int position;
+
+        private int[] spare;
+
+        private boolean refillRequested;
+
+        private Stripe(int[] codes){
+            this.codes = codes;
+        }
+    }
+}
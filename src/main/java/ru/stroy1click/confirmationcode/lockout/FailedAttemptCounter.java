@@ -0,0 +1,19 @@
+package ru.stroy1click.confirmationcode.lockout;
+
+import java.time.Duration;
+
+/**
+ * Счётчики неудачных попыток ввода кода по ключу. Счётчик живёт window с момента первой неудачи.
+ * Реализация выбирается свойством confirmation-code.lockout.type.
+ */
+public interface FailedAttemptCounter {
+
+    /**
+     * @return количество неудачных попыток с учётом текущей.
+     */
+    int increment(String key, Duration window);
+
+    int get(String key);
+
+    void reset(String key);
+}
@@ -0,0 +1,61 @@
+package ru.stroy1click.confirmationcode.lockout;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.model.Type;
+
+import java.time.Duration;
+
+/**
+ * Защита от перебора кода подтверждения: после max-attempts неудачных попыток для пары (type, email)
+ * код удаляется, а следующие попытки отклоняются без обращения к хранилищу кодов, пока пользователь не создаст новый код.
+ * Метрики: confirmation_code.lockout.failures, confirmation_code.lockout.locked и confirmation_code.lockout.rejected
+ * с тегом type.
+ */
+@Component
+public class FailedAttemptGuard {
+
+    private final FailedAttemptCounter failedAttemptCounter;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxAttempts;
+
+    private final Duration window;
+
+    public FailedAttemptGuard(FailedAttemptCounter failedAttemptCounter, MeterRegistry meterRegistry,
+                              @Value(value = "${confirmation-code.lockout.max-attempts}") int maxAttempts,
+                              @Value(value = "${confirmation-code.lockout.window}") Duration window){
+        this.failedAttemptCounter = failedAttemptCounter;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.window = window;
+    }
+
+    public boolean isLocked(Type type, String email){
+        boolean locked = this.failedAttemptCounter.get(key(type, email)) >= this.maxAttempts;
+        if (locked) this.meterRegistry.counter("confirmation_code.lockout.rejected", "type", type.name()).increment();
+        return locked;
+    }
+
+    /**
+     * @return true, если попытка была последней допустимой и код нужно удалить.
+     */
+    public boolean recordFailure(Type type, String email){
+        this.meterRegistry.counter("confirmation_code.lockout.failures", "type", type.name()).increment();
+        int attempts = this.failedAttemptCounter.increment(key(type, email), this.window);
+        if (attempts == this.maxAttempts) {
+            this.meterRegistry.counter("confirmation_code.lockout.locked", "type", type.name()).increment();
+        }
+        return attempts >= this.maxAttempts;
+    }
+
+    public void reset(Type type, String email){
+        this.failedAttemptCounter.reset(key(type, email));
+    }
+
+    private static String key(Type type, String email){
+        return type.name() + ":" + email;
+    }
+}
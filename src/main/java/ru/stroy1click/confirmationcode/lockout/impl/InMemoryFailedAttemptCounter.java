@@ -0,0 +1,85 @@
+package ru.stroy1click.confirmationcode.lockout.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.lockout.FailedAttemptCounter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счётчики в памяти процесса: AtomicInteger в Caffeine. Срок жизни записи - window из increment,
+ * он отсчитывается от первой неудачной попытки и не продлевается следующими, как в RedisFailedAttemptCounter.
+ */
+@Component
+@ConditionalOnProperty(name = "confirmation-code.lockout.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryFailedAttemptCounter implements FailedAttemptCounter {
+
+    private final Cache<String, Attempts> counters;
+
+    @Autowired
+    public InMemoryFailedAttemptCounter(@Value(value = "${confirmation-code.lockout.max-keys}") long maxKeys){
+        this(maxKeys, Ticker.systemTicker());
+    }
+
+    public InMemoryFailedAttemptCounter(long maxKeys, Ticker ticker){
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(new Expiry<String, Attempts>() {
+                    @Override
+                    public long expireAfterCreate(String key, Attempts attempts, long currentTime) {
+                        return attempts.windowNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Attempts attempts, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Attempts attempts, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public int increment(String key, Duration window) {
+        return this.counters.get(key, k -> new Attempts(window.toNanos())).count.incrementAndGet();
+    }
+
+    @Override
+    public int get(String key) {
+        Attempts attempts = this.counters.getIfPresent(key);
+        return attempts == null ? 0 : attempts.count.get();
+    }
+
+    @Override
+    public void reset(String key) {
+        this.counters.invalidate(key);
+    }
+
+    public long size(){
+        this.counters.cleanUp();
+        return this.counters.estimatedSize();
+    }
+
+    private static final class Attempts {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final long windowNanos;
+
+        private Attempts(long windowNanos){
+            this.windowNanos = windowNanos;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.stroy1click.confirmationcode.lockout.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.lockout.FailedAttemptCounter;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Счётчики в Redis, общие для всех экземпляров сервиса. TTL ставится при первой неудачной попытке.
+ */
+@Component
+@ConditionalOnProperty(name = "confirmation-code.lockout.type", havingValue = "redis")
+public class RedisFailedAttemptCounter implements FailedAttemptCounter {
+
+    private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of("""
+            local count = redis.call('INCR', KEYS[1])
+            if count == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end
+            return count
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String keyPrefix;
+
+    public RedisFailedAttemptCounter(StringRedisTemplate redisTemplate,
+                                     @Value(value = "${confirmation-code.lockout.redis.key-prefix}") String keyPrefix){
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public int increment(String key, Duration window) {
+        Long count = this.redisTemplate.execute(INCREMENT_SCRIPT, List.of(this.keyPrefix + key),
+                Long.toString(window.toMillis()));
+        return count == null ? 0 : count.intValue();
+    }
+
+    @Override
+    public int get(String key) {
+        String count = this.redisTemplate.opsForValue().get(this.keyPrefix + key);
+        return count == null ? 0 : Integer.parseInt(count);
+    }
+
+    @Override
+    public void reset(String key) {
+        this.redisTemplate.delete(this.keyPrefix + key);
+    }
+}
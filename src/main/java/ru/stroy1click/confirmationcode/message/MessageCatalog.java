@@ -0,0 +1,82 @@
+package ru.stroy1click.confirmationcode.message;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Все сообщения из messages*.properties, разрешённые через MessageSource при старте для каждой локали
+ * из confirmation-code.messages.supported-locales. На запросе текст берётся чтением из map, без MessageSource
+ * и MessageFormat. Локаль клиента (Accept-Language) сводится к поддерживаемой по языку, иначе к первой из списка.
+ */
+@Component
+public class MessageCatalog {
+
+    private final List<Locale> supportedLocales;
+
+    private final Locale defaultLocale;
+
+    private final Map<String, Map<String, String>> messagesByLanguage = new HashMap<>();
+
+    public MessageCatalog(MessageSource messageSource,
+                          @Value(value = "${spring.messages.basename}") String basename,
+                          @Value(value = "${confirmation-code.messages.supported-locales}") List<Locale> supportedLocales)
+            throws IOException {
+        this.supportedLocales = List.copyOf(supportedLocales);
+        this.defaultLocale = this.supportedLocales.get(0);
+
+        Set<String> keys = loadKeys(basename);
+        for (Locale locale : this.supportedLocales) {
+            Map<String, String> messages = new HashMap<>();
+            for (String key : keys) {
+                messages.put(key, messageSource.getMessage(key, null, locale));
+            }
+            this.messagesByLanguage.put(locale.getLanguage(), Map.copyOf(messages));
+        }
+    }
+
+    /**
+     * @return поддерживаемая локаль с тем же языком, что у requested, иначе локаль по умолчанию.
+     */
+    public Locale resolve(Locale requested){
+        if (requested != null) {
+            for (Locale locale : this.supportedLocales) {
+                if (locale.getLanguage().equals(requested.getLanguage())) return locale;
+            }
+        }
+        return this.defaultLocale;
+    }
+
+    public List<Locale> getSupportedLocales(){
+        return this.supportedLocales;
+    }
+
+    public String get(String key, Locale locale){
+        String message = this.messagesByLanguage.get(resolve(locale).getLanguage()).get(key);
+        if (message == null) throw new NoSuchMessageException(key, locale);
+        return message;
+    }
+
+    private static Set<String> loadKeys(String basename) throws IOException {
+        Set<String> keys = new HashSet<>();
+        for (String name : StringUtils.commaDelimitedListToStringArray(basename)) {
+            Properties properties = PropertiesLoaderUtils.loadProperties(
+                    new ClassPathResource(name.trim().replace('.', '/') + ".properties"));
+            keys.addAll(properties.stringPropertyNames());
+        }
+        return keys;
+    }
+}
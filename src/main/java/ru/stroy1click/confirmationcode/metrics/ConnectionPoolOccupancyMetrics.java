@@ -0,0 +1,51 @@
+package ru.stroy1click.confirmationcode.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Доля занятых соединений Hikari (active / maximum-pool-size) - confirmation_code.db.pool.occupancy.
+ * Вместе с hikaricp.connections.usage показывает, не держит ли кто-то соединения дольше коротких команд к базе.
+ * В профиле reactive пул Hikari остаётся у EmailOutboxRelay и ExpiredConfirmationCodeSweeper, поэтому метрика
+ * показывает занятость пула ретранслятора, а не API.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectionPoolOccupancyMetrics implements MeterBinder {
+
+    private final DataSource dataSource;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        HikariDataSource hikariDataSource = unwrap();
+        if (hikariDataSource == null) return;
+
+        Gauge.builder("confirmation_code.db.pool.occupancy", hikariDataSource, ConnectionPoolOccupancyMetrics::occupancy)
+                .description("Доля занятых соединений пула Hikari")
+                .register(registry);
+    }
+
+    private static double occupancy(HikariDataSource hikariDataSource){
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        if (pool == null) return 0;
+        return (double) pool.getActiveConnections() / hikariDataSource.getMaximumPoolSize();
+    }
+
+    private HikariDataSource unwrap(){
+        try {
+            return this.dataSource.isWrapperFor(HikariDataSource.class)
+                    ? this.dataSource.unwrap(HikariDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.stroy1click.confirmationcode.metrics;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.exception.NotFoundException;
+import ru.stroy1click.confirmationcode.exception.ServiceErrorResponseException;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.model.ConfirmationCodeOutcome;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таймеры горячего пути: методы ConfirmationCodeService (тег outcome - reason из ConfirmationCodeOutcome
+ * или вид исключения), вызовы внешних сервисов
+ * (теги status и circuit_state) и запросы репозиториев. Гистограммы и SLO-бакеты задаются
+ * в management.metrics.distribution, чтобы менять их без пересборки.
+ * Аспект стоит снаружи @CircuitBreaker, поэтому короткие замыкания тоже попадают в таймер клиента.
+ * Reactive-компоненты не оборачиваются: таймер вокруг метода, возвращающего Mono, измерил бы только сборку цепочки,
+ * их вызовы видны в http.client.requests и r2dbc.pool.*.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OperationMetricsAspect {
+
+    private static final String SERVICE_TIMER = "confirmation_code.service";
+
+    private static final String CLIENT_TIMER = "confirmation_code.client";
+
+    private static final String REPOSITORY_TIMER = "confirmation_code.repository";
+
+    private final MeterRegistry meterRegistry;
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final Map<Class<?>, String> circuitBreakerNames = new ConcurrentHashMap<>();
+
+    @Around("execution(* ru.stroy1click.confirmationcode.service.ConfirmationCodeService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = result instanceof ConfirmationCodeOutcome confirmationCodeOutcome
+                    ? confirmationCodeOutcome.getReason()
+                    : "success";
+            return result;
+        } catch (Throwable e) {
+            outcome = serviceOutcome(e);
+            throw e;
+        } finally {
+            sample.stop(this.meterRegistry.timer(SERVICE_TIMER, "method", method, "outcome", outcome));
+        }
+    }
+
+    @Around("within(ru.stroy1click.confirmationcode.client.impl..*) && execution(public * *(..))"
+            + " && !within(ru.stroy1click.confirmationcode.client.impl.Reactive*)")
+    public Object timeClient(ProceedingJoinPoint joinPoint) throws Throwable {
+        String client = circuitBreakerName(AopUtils.getTargetClass(joinPoint.getTarget()));
+        String circuitState = this.circuitBreakerRegistry.circuitBreaker(client).getState().name().toLowerCase(Locale.ROOT);
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String status = "2xx";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            status = clientStatus(e);
+            throw e;
+        } finally {
+            sample.stop(this.meterRegistry.timer(CLIENT_TIMER, "client", client,
+                    "method", joinPoint.getSignature().getName(), "status", status, "circuit_state", circuitState));
+        }
+    }
+
+    @Around("execution(* ru.stroy1click.confirmationcode.repository..*.*(..))"
+            + " && !within(ru.stroy1click.confirmationcode.repository.Reactive*)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(this.meterRegistry.timer(REPOSITORY_TIMER,
+                    "repository", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                    "method", joinPoint.getSignature().getName(), "outcome", outcome));
+        }
+    }
+
+    private static String serviceOutcome(Throwable e){
+        if (e instanceof ValidationException) return "invalid_request";
+        if (e instanceof NotFoundException) return "not_found";
+        if (e instanceof ServiceUnavailableException || e instanceof CallNotPermittedException) return "unavailable";
+        return "error";
+    }
+
+    private static String clientStatus(Throwable e){
+        if (e instanceof CallNotPermittedException) return "short_circuited";
+        if (e instanceof ValidationException) return "400";
+        if (e instanceof NotFoundException) return "404";
+        if (e instanceof ServiceErrorResponseException) return "500";
+        if (e instanceof ServiceUnavailableException) return "503";
+        return "error";
+    }
+
+    private String circuitBreakerName(Class<?> clientClass){
+        return this.circuitBreakerNames.computeIfAbsent(clientClass, type -> {
+            CircuitBreaker annotation = AnnotationUtils.findAnnotation(type, CircuitBreaker.class);
+            return annotation != null ? annotation.name() : type.getSimpleName();
+        });
+    }
+}
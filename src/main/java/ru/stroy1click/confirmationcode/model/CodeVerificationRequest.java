@@ -11,7 +11,7 @@ import org.hibernate.validator.constraints.Length;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class CodeVerificationRequest {
+public class CodeVerificationRequest implements EmailAware {
 
     @NotBlank(message = "{validation.code_verification_request.email.not_blank}")
     @Email(message = "{validation.code_verification_request.email.valid}")
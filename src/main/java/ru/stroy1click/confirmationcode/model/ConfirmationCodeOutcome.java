@@ -0,0 +1,38 @@
+package ru.stroy1click.confirmationcode.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Ожидаемый итог операции с кодом подтверждения. Сервис возвращает его вместо исключения, контроллер превращает
+ * в ответ: успех - 200 с сообщением, отказ - ProblemDetail с тем же статусом и заголовком, что AdviceController
+ * отдаёт для ValidationException и NotFoundException.
+ * reason - тег outcome в метриках confirmation_code.service.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ConfirmationCodeOutcome {
+
+    SENT(HttpStatus.OK, "info.confirmation_code.sent", "sent"),
+    EMAIL_CONFIRMED(HttpStatus.OK, "info.confirmation_code.email.confirmed", "confirmed"),
+    PASSWORD_UPDATED(HttpStatus.OK, "info.password.successfully_updated", "confirmed"),
+    ALREADY_SENT(HttpStatus.BAD_REQUEST, "error.confirmation_code.already_sent", "already_sent"),
+    RECREATE_FAILED(HttpStatus.BAD_REQUEST, "error.confirmation_code.recreate_failed", "not_found"),
+    EMAIL_ALREADY_CONFIRMED(HttpStatus.BAD_REQUEST, "error.email.already_confirmed", "email_already_confirmed"),
+    PASSWORD_MISMATCH(HttpStatus.BAD_REQUEST, "error.password.not_match", "password_mismatch"),
+    LOCKED(HttpStatus.BAD_REQUEST, "error.confirmation_code.attempts_exceeded", "locked"),
+    INVALID(HttpStatus.BAD_REQUEST, "error.confirmation_code.not_valid", "invalid"),
+    EXPIRED(HttpStatus.BAD_REQUEST, "error.confirmation_code.not_valid", "expired"),
+    NOT_FOUND(HttpStatus.NOT_FOUND, "error.confirmation_code.not_found", "not_found");
+
+    private final HttpStatus status;
+
+    private final String messageKey;
+
+    private final String reason;
+
+    public boolean isSuccess(){
+        return this.status.is2xxSuccessful();
+    }
+}
@@ -0,0 +1,5 @@
+package ru.stroy1click.confirmationcode.model;
+
+public enum ConsumeResult {
+    CONSUMED, NOT_FOUND, INVALID, EXPIRED
+}
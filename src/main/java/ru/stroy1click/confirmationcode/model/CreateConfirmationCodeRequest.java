@@ -11,7 +11,7 @@ import org.hibernate.validator.constraints.Length;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class CreateConfirmationCodeRequest {
+public class CreateConfirmationCodeRequest implements EmailAware {
 
     @NotNull(message = "{validation.create_confirmation_code_request.confirmation_code_type.not_null}")
     private Type confirmationCodeType;
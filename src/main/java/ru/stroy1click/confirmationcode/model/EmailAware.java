@@ -0,0 +1,9 @@
+package ru.stroy1click.confirmationcode.model;
+
+/**
+ * Запрос, относящийся к электронной почте пользователя. Почта используется как ключ ограничения частоты запросов.
+ */
+public interface EmailAware {
+
+    String getEmail();
+}
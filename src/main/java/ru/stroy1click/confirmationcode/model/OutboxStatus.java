@@ -0,0 +1,5 @@
+package ru.stroy1click.confirmationcode.model;
+
+public enum OutboxStatus {
+    PENDING, FAILED
+}
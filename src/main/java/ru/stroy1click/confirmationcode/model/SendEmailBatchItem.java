@@ -0,0 +1,18 @@
+package ru.stroy1click.confirmationcode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.stroy1click.confirmationcode.dto.UserDto;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SendEmailBatchItem {
+
+    private Long id;
+
+    private Integer code;
+
+    private UserDto user;
+}
@@ -0,0 +1,17 @@
+package ru.stroy1click.confirmationcode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SendEmailBatchItemResult {
+
+    private Long id;
+
+    private EmailDeliveryStatus status;
+
+    private String error;
+}
@@ -0,0 +1,15 @@
+package ru.stroy1click.confirmationcode.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SendEmailBatchResponse {
+
+    private List<SendEmailBatchItemResult> results;
+}
@@ -0,0 +1,17 @@
+package ru.stroy1click.confirmationcode.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ограничивает частоту вызовов метода отдельно для каждой почты и каждого IP клиента.
+ * Значение - имя ограничения в confirmation-code.rate-limit.limits.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface KeyedRateLimit {
+
+    String value();
+}
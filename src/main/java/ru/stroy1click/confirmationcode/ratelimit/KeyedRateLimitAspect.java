@@ -0,0 +1,119 @@
+package ru.stroy1click.confirmationcode.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.ContextView;
+import ru.stroy1click.confirmationcode.config.RateLimitProperties;
+import ru.stroy1click.confirmationcode.exception.TooManyRequestsException;
+import ru.stroy1click.confirmationcode.model.EmailAware;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Проверяет ограничения @KeyedRateLimit до вызова метода: сначала по IP клиента, затем по почте из тела запроса.
+ * Токен почты списывается только после того, как запрос пропустил лимит IP, поэтому клиент, упёршийся в свой
+ * лимит, не расходует лимит чужой почты.
+ * IP берётся из HttpServletRequest.getRemoteAddr(), за балансировщиком нужно включить server.forward-headers-strategy.
+ * В профиле reactive метод возвращает Mono: проверка встраивается в цепочку перед вызовом метода,
+ * IP берётся из ServerWebExchange (его кладёт в контекст Reactor ServerWebExchangeContextFilter),
+ * а обращение к лимитеру, который может жить в Redis, уходит с event loop на boundedElastic.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class KeyedRateLimitAspect {
+
+    private final KeyedRateLimiter keyedRateLimiter;
+
+    private final RateLimitProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(keyedRateLimit)")
+    public Object checkLimit(ProceedingJoinPoint joinPoint, KeyedRateLimit keyedRateLimit) throws Throwable {
+        RateLimitProperties.Limit limit = this.properties.getLimits().get(keyedRateLimit.value());
+        if (limit == null) return joinPoint.proceed();
+
+        String email = extractEmail(joinPoint.getArgs());
+        if (Mono.class.isAssignableFrom(((MethodSignature) joinPoint.getSignature()).getReturnType())) {
+            return Mono.deferContextual(context -> Mono.fromRunnable(() ->
+                            checkLimit(keyedRateLimit.value(), limit, email, reactiveClientIp(context)))
+                    .subscribeOn(Schedulers.boundedElastic()))
+                    .then(Mono.defer(() -> proceed(joinPoint)));
+        }
+
+        checkLimit(keyedRateLimit.value(), limit, email, servletClientIp());
+        return joinPoint.proceed();
+    }
+
+    private void checkLimit(String limitName, RateLimitProperties.Limit limit, String email, String clientIp){
+        if (clientIp != null && limit.getIp() != null) {
+            acquire(limitName, "ip", clientIp, limit.getIp());
+        }
+
+        if (email != null && limit.getEmail() != null) {
+            acquire(limitName, "email", email.toLowerCase(Locale.ROOT), limit.getEmail());
+        }
+    }
+
+    private void acquire(String limitName, String keyType, String key, RateLimitProperties.Bandwidth bandwidth){
+        Duration retryAfter = this.keyedRateLimiter.tryAcquire(limitName + ":" + keyType + ":" + key, bandwidth);
+        if (retryAfter.isZero()) return;
+
+        this.meterRegistry.counter("confirmation_code.rate_limit.rejected", "limit", limitName, "key", keyType)
+                .increment();
+        throw new TooManyRequestsException(retryAfter);
+    }
+
+    private static String extractEmail(Object[] args){
+        for (Object arg : args) {
+            if (arg instanceof EmailAware emailAware && emailAware.getEmail() != null && !emailAware.getEmail().isBlank()) {
+                return emailAware.getEmail();
+            }
+        }
+        return null;
+    }
+
+    private static String servletClientIp(){
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            return request.getRemoteAddr();
+        }
+        return null;
+    }
+
+    private static String reactiveClientIp(ContextView context){
+        return ServerWebExchangeContextFilter.getExchange(context)
+                .map(exchange -> exchange.getRequest().getRemoteAddress())
+                .map(KeyedRateLimitAspect::hostAddress)
+                .orElse(null);
+    }
+
+    private static String hostAddress(InetSocketAddress address){
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<Object> proceed(ProceedingJoinPoint joinPoint){
+        try {
+            return (Mono<Object>) joinPoint.proceed();
+        } catch (Throwable e) {
+            return Mono.error(e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.stroy1click.confirmationcode.ratelimit;
+
+import ru.stroy1click.confirmationcode.config.RateLimitProperties;
+
+import java.time.Duration;
+
+public interface KeyedRateLimiter {
+
+    /**
+     * Пытается взять один токен из корзины с ключом key.
+     * @return Duration.ZERO, если токен получен, иначе время до появления следующего токена.
+     */
+    Duration tryAcquire(String key, RateLimitProperties.Bandwidth bandwidth);
+}
@@ -0,0 +1,62 @@
+package ru.stroy1click.confirmationcode.ratelimit.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.config.RateLimitProperties;
+import ru.stroy1click.confirmationcode.ratelimit.KeyedRateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket в памяти одного экземпляра сервиса в форме GCRA: состояние корзины - одно число,
+ * теоретическое время прихода следующего запроса, которое обновляется через CAS без блокировок.
+ * Корзины хранятся в Caffeine с ограничением по количеству и удалением после idle-timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "confirmation-code.rate-limit.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryKeyedRateLimiter implements KeyedRateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    private final Ticker ticker;
+
+    @Autowired
+    public InMemoryKeyedRateLimiter(RateLimitProperties properties){
+        this(properties.getMaxKeys(), properties.getIdleTimeout(), Ticker.systemTicker());
+    }
+
+    public InMemoryKeyedRateLimiter(long maxKeys, Duration idleTimeout, Ticker ticker){
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public Duration tryAcquire(String key, RateLimitProperties.Bandwidth bandwidth) {
+        long interval = bandwidth.getRefillPeriod().toNanos() / bandwidth.getCapacity();
+        long burst = interval * bandwidth.getCapacity();
+        AtomicLong theoreticalArrival = this.buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = this.ticker.read();
+
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + interval;
+            long excess = next - now - burst;
+            if (excess > 0) return Duration.ofNanos(excess);
+            if (theoreticalArrival.compareAndSet(current, next)) return Duration.ZERO;
+        }
+    }
+
+    public long size(){
+        this.buckets.cleanUp();
+        return this.buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.stroy1click.confirmationcode.ratelimit.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.config.RateLimitProperties;
+import ru.stroy1click.confirmationcode.ratelimit.KeyedRateLimiter;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Тот же GCRA, что и в памяти, но общий для всех экземпляров сервиса: состояние корзины хранится в Redis
+ * и обновляется Lua-скриптом атомарно. Время берётся из Redis, поэтому расхождение часов экземпляров не влияет на лимит.
+ */
+@Component
+@ConditionalOnProperty(name = "confirmation-code.rate-limit.type", havingValue = "redis")
+public class RedisKeyedRateLimiter implements KeyedRateLimiter {
+
+    /**
+     * Возвращает 0, если токен получен, иначе время до появления токена в микросекундах.
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of("""
+            local interval = tonumber(ARGV[1])
+            local burst = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then tat = now end
+            local next = tat + interval
+            local excess = next - now - burst
+            if excess > 0 then return excess end
+            redis.call('SET', KEYS[1], next, 'PX', math.ceil((next - now) / 1000))
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String keyPrefix;
+
+    public RedisKeyedRateLimiter(StringRedisTemplate redisTemplate,
+                                 @Value(value = "${confirmation-code.rate-limit.redis.key-prefix}") String keyPrefix){
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public Duration tryAcquire(String key, RateLimitProperties.Bandwidth bandwidth) {
+        long interval = bandwidth.getRefillPeriod().toNanos() / 1_000 / bandwidth.getCapacity();
+        long burst = interval * bandwidth.getCapacity();
+        Long excess = this.redisTemplate.execute(ACQUIRE_SCRIPT, List.of(this.keyPrefix + key),
+                Long.toString(interval), Long.toString(burst));
+
+        return excess == null || excess <= 0 ? Duration.ZERO : Duration.of(excess, ChronoUnit.MICROS);
+    }
+}
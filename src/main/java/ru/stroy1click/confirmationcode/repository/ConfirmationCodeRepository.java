@@ -1,24 +1,101 @@
 package ru.stroy1click.confirmationcode.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.stroy1click.confirmationcode.entity.ConfirmationCode;
 import ru.stroy1click.confirmationcode.model.Type;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ConfirmationCodeRepository extends JpaRepository<ConfirmationCode, Long> {
 
+    @Transactional(readOnly = true)
     Optional<ConfirmationCode> findByTypeAndUserEmail(Type type, String userEmail);
 
-    void deleteByTypeAndUserEmail(Type type, String userEmail);
+    /**
+     * Сохраняет новый код подтверждения одной командой.
+     * Если у пользователя уже есть код такого типа, он перезаписывается только когда срок его действия истёк.
+     * @return id сохранённого кода или пустой Optional, если у пользователя есть действующий код.
+     */
+    @Transactional
+    @Query(value = """
+            insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email)
+            values (:code, :expirationDate, :type, :userEmail)
+            on conflict (type, user_email) do update
+                set code = excluded.code, expiration_date = excluded.expiration_date
+                where confirmation_codes.expiration_date < :now
+            returning id
+            """, nativeQuery = true)
+    Optional<Long> insertIfAbsentOrExpired(@Param("code") Integer code,
+                                           @Param("expirationDate") LocalDateTime expirationDate,
+                                           @Param("type") String type,
+                                           @Param("userEmail") String userEmail,
+                                           @Param("now") LocalDateTime now);
 
-    Integer countByTypeAndUserEmail(Type type, String userEmail);
+    /**
+     * Заменяет существующий код подтверждения одной командой.
+     * @return id обновлённого кода или пустой Optional, если у пользователя нет кода такого типа.
+     */
+    @Transactional
+    @Query(value = """
+            update confirmation_code.confirmation_codes
+            set code = :code, expiration_date = :expirationDate
+            where type = :type and user_email = :userEmail
+            returning id
+            """, nativeQuery = true)
+    Optional<Long> updateCodeIfPresent(@Param("code") Integer code,
+                                       @Param("expirationDate") LocalDateTime expirationDate,
+                                       @Param("type") String type,
+                                       @Param("userEmail") String userEmail);
 
-    void deleteByCode(Integer code);
+    /**
+     * Проверяет и удаляет код подтверждения одной командой.
+     * Строка удаляется только если код совпал и срок его действия не истёк, поэтому код нельзя использовать дважды.
+     * @return id удалённого кода или пустой Optional, если код не найден, неверный или просрочен.
+     */
+    @Transactional
+    @Query(value = """
+            delete from confirmation_code.confirmation_codes
+            where type = :type and user_email = :userEmail and code = :code and expiration_date > :now
+            returning id
+            """, nativeQuery = true)
+    Optional<Long> consumeValidCode(@Param("code") Integer code,
+                                    @Param("type") String type,
+                                    @Param("userEmail") String userEmail,
+                                    @Param("now") LocalDateTime now);
 
     List<ConfirmationCode> findAllByUserEmail(String userEmail);
 
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from confirmation_code.confirmation_codes
+            where type = :type and user_email = :userEmail
+            """, nativeQuery = true)
+    int deleteByTypeAndUserEmail(@Param("type") String type, @Param("userEmail") String userEmail);
+
+    /**
+     * Удаляет не больше batchSize просроченных кодов одной командой.
+     * Строки, заблокированные параллельными транзакциями, пропускаются, поэтому чистка не ждёт пользовательские запросы.
+     * @return количество удалённых строк.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from confirmation_code.confirmation_codes
+            where id in (select id from confirmation_code.confirmation_codes
+                         where expiration_date < :now
+                         order by expiration_date
+                         limit :batchSize
+                         for update skip locked)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
 }
@@ -0,0 +1,69 @@
+package ru.stroy1click.confirmationcode.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.stroy1click.confirmationcode.entity.EmailOutboxMessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Забирает пачку готовых к отправке писем и сдвигает их next_attempt_at на время аренды.
+     * Строки, заблокированные другим экземпляром сервиса, пропускаются (SKIP LOCKED).
+     * Если экземпляр упадёт до завершения отправки, письма снова станут доступны по истечении аренды.
+     */
+    @Transactional
+    @Query(value = """
+            update confirmation_code.email_outbox
+            set next_attempt_at = :leaseUntil, attempts = attempts + 1
+            where id in (
+                select id from confirmation_code.email_outbox
+                where status = 'PENDING' and next_attempt_at <= :now
+                order by next_attempt_at
+                limit :batchSize
+                for update skip locked
+            )
+            returning *
+            """, nativeQuery = true)
+    List<EmailOutboxMessage> claimBatch(@Param("now") LocalDateTime now,
+                                        @Param("leaseUntil") LocalDateTime leaseUntil,
+                                        @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update confirmation_code.email_outbox
+            set next_attempt_at = :nextAttemptAt, last_error = :lastError
+            where id = :id
+            """, nativeQuery = true)
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update confirmation_code.email_outbox
+            set status = 'FAILED', last_error = :lastError
+            where id = :id
+            """, nativeQuery = true)
+    int markFailed(@Param("id") Long id, @Param("lastError") String lastError);
+
+    /**
+     * Возвращает забранные, но не отправленные письма в очередь без учёта попытки.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update confirmation_code.email_outbox
+            set next_attempt_at = :now, attempts = attempts - 1
+            where id in (:ids)
+            """, nativeQuery = true)
+    int release(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+}
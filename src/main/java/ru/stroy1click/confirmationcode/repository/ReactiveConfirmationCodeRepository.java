@@ -0,0 +1,141 @@
+package ru.stroy1click.confirmationcode.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.model.ConsumeResult;
+import ru.stroy1click.confirmationcode.model.OutboxStatus;
+import ru.stroy1click.confirmationcode.model.Type;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC-доступ к confirmation_codes для профиля reactive. Запросы те же, что в ConfirmationCodeRepository,
+ * но сохранение кода и постановка письма в email_outbox выполняются одной командой через CTE,
+ * поэтому реактивному стеку не нужна отдельная транзакция.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveConfirmationCodeRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Сохраняет новый код (или перезаписывает просроченный) и в той же команде ставит письмо в outbox.
+     * @return true, если код сохранён; false, если у пользователя есть действующий код.
+     */
+    public Mono<Boolean> insertIfAbsentOrExpired(Integer code, LocalDateTime expirationDate, Type type, String userEmail,
+                                                 String emailPayload, LocalDateTime now){
+        return this.databaseClient.sql("""
+                        with saved as (
+                            insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email)
+                            values (:code, :expirationDate, :type, :userEmail)
+                            on conflict (type, user_email) do update
+                                set code = excluded.code, expiration_date = excluded.expiration_date
+                                where confirmation_codes.expiration_date < :now
+                            returning id
+                        )
+                        insert into confirmation_code.email_outbox(payload, status, attempts, next_attempt_at, created_at)
+                        select :payload, :status, 0, :now, :now from saved
+                        returning id
+                        """)
+                .bind("code", code)
+                .bind("expirationDate", expirationDate)
+                .bind("type", type.name())
+                .bind("userEmail", userEmail)
+                .bind("payload", emailPayload)
+                .bind("status", OutboxStatus.PENDING.name())
+                .bind("now", now)
+                .map(row -> row.get("id", Long.class))
+                .first()
+                .hasElement();
+    }
+
+    /**
+     * Заменяет существующий код и в той же команде ставит письмо в outbox.
+     * @return true, если код заменён; false, если у пользователя нет кода такого типа.
+     */
+    public Mono<Boolean> updateCodeIfPresent(Integer code, LocalDateTime expirationDate, Type type, String userEmail,
+                                             String emailPayload, LocalDateTime now){
+        return this.databaseClient.sql("""
+                        with updated as (
+                            update confirmation_code.confirmation_codes
+                            set code = :code, expiration_date = :expirationDate
+                            where type = :type and user_email = :userEmail
+                            returning id
+                        )
+                        insert into confirmation_code.email_outbox(payload, status, attempts, next_attempt_at, created_at)
+                        select :payload, :status, 0, :now, :now from updated
+                        returning id
+                        """)
+                .bind("code", code)
+                .bind("expirationDate", expirationDate)
+                .bind("type", type.name())
+                .bind("userEmail", userEmail)
+                .bind("payload", emailPayload)
+                .bind("status", OutboxStatus.PENDING.name())
+                .bind("now", now)
+                .map(row -> row.get("id", Long.class))
+                .first()
+                .hasElement();
+    }
+
+    /**
+     * Возвращает использованный код, если запрос во внешний сервис после его использования не удался.
+     * Письмо не ставится в outbox: код у пользователя уже есть. Если пользователь успел получить новый код, он не трогается.
+     */
+    public Mono<Void> restore(Integer code, LocalDateTime expirationDate, Type type, String userEmail){
+        return this.databaseClient.sql("""
+                        insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email)
+                        values (:code, :expirationDate, :type, :userEmail)
+                        on conflict (type, user_email) do nothing
+                        """)
+                .bind("code", code)
+                .bind("expirationDate", expirationDate)
+                .bind("type", type.name())
+                .bind("userEmail", userEmail)
+                .then();
+    }
+
+    /**
+     * Проверяет и удаляет код одной командой, при неудаче выясняет причину по уникальному индексу.
+     */
+    public Mono<ConsumeResult> consume(Type type, String userEmail, Integer code, LocalDateTime now){
+        return this.databaseClient.sql("""
+                        delete from confirmation_code.confirmation_codes
+                        where type = :type and user_email = :userEmail and code = :code and expiration_date > :now
+                        returning id
+                        """)
+                .bind("code", code)
+                .bind("type", type.name())
+                .bind("userEmail", userEmail)
+                .bind("now", now)
+                .map(row -> ConsumeResult.CONSUMED)
+                .first()
+                .switchIfEmpty(Mono.defer(() -> this.databaseClient.sql("""
+                                select expiration_date from confirmation_code.confirmation_codes
+                                where type = :type and user_email = :userEmail
+                                """)
+                        .bind("type", type.name())
+                        .bind("userEmail", userEmail)
+                        .map(row -> row.get("expiration_date", LocalDateTime.class).isAfter(now)
+                                ? ConsumeResult.INVALID
+                                : ConsumeResult.EXPIRED)
+                        .first()
+                        .defaultIfEmpty(ConsumeResult.NOT_FOUND)));
+    }
+
+    public Mono<Long> deleteByTypeAndUserEmail(Type type, String userEmail){
+        return this.databaseClient.sql("""
+                        delete from confirmation_code.confirmation_codes
+                        where type = :type and user_email = :userEmail
+                        """)
+                .bind("type", type.name())
+                .bind("userEmail", userEmail)
+                .fetch()
+                .rowsUpdated();
+    }
+}
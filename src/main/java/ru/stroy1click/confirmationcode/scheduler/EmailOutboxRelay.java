@@ -0,0 +1,274 @@
+package ru.stroy1click.confirmationcode.scheduler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.client.EmailClient;
+import ru.stroy1click.confirmationcode.entity.EmailOutboxMessage;
+import ru.stroy1click.confirmationcode.exception.NotFoundException;
+import ru.stroy1click.confirmationcode.exception.ServiceOverloadedException;
+import ru.stroy1click.confirmationcode.exception.UnsupportedEndpointException;
+import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.model.SendEmailBatchItem;
+import ru.stroy1click.confirmationcode.model.SendEmailBatchItemResult;
+import ru.stroy1click.confirmationcode.model.SendEmailBatchRequest;
+import ru.stroy1click.confirmationcode.model.SendEmailBatchResponse;
+import ru.stroy1click.confirmationcode.model.SendEmailRequest;
+import ru.stroy1click.confirmationcode.repository.EmailOutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Доставляет письма из email_outbox. Единственный потребитель outbox для обоих стеков: реактивный сервис
+ * кладёт письма в ту же таблицу через R2DBC, а доставка идёт здесь через JPA. Поэтому в профиле reactive
+ * JDBC и Hikari не отключаются, но пул для них уменьшен в application-reactive.yml - запросы API через него не ходят.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "confirmation-code.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailOutboxRelay {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    private final EmailClient emailClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final Executor emailTaskExecutor;
+
+    private final int batchSize;
+
+    private final Duration lease;
+
+    private final int maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    private final boolean batchDispatch;
+
+    private final Counter sentCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter failedCounter;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer batchFlushTimer;
+
+    public EmailOutboxRelay(EmailOutboxRepository emailOutboxRepository,
+                            EmailClient emailClient,
+                            ObjectMapper objectMapper,
+                            @Qualifier("emailTaskExecutor") Executor emailTaskExecutor,
+                            MeterRegistry meterRegistry,
+                            @Value(value = "${confirmation-code.outbox.batch-size}") int batchSize,
+                            @Value(value = "${confirmation-code.outbox.lease}") Duration lease,
+                            @Value(value = "${confirmation-code.outbox.max-attempts}") int maxAttempts,
+                            @Value(value = "${confirmation-code.outbox.initial-backoff}") Duration initialBackoff,
+                            @Value(value = "${confirmation-code.outbox.max-backoff}") Duration maxBackoff,
+                            @Value(value = "${confirmation-code.outbox.batch-dispatch}") boolean batchDispatch){
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailClient = emailClient;
+        this.objectMapper = objectMapper;
+        this.emailTaskExecutor = emailTaskExecutor;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.batchDispatch = batchDispatch;
+        this.sentCounter = Counter.builder("confirmation_code.outbox.sent")
+                .description("Количество писем, доставленных в email-service")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("confirmation_code.outbox.retried")
+                .description("Количество неудачных попыток доставки, отложенных для повтора")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("confirmation_code.outbox.failed")
+                .description("Количество писем, которые не удалось доставить")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("confirmation_code.outbox.batch.size")
+                .description("Количество писем в одном пакетном запросе к email-service")
+                .register(meterRegistry);
+        this.batchFlushTimer = Timer.builder("confirmation_code.outbox.batch.flush")
+                .description("Время пакетного запроса к email-service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод забирает письма из outbox-таблицы пачками и доставляет их в email-service.
+     * Пачка забирается короткой транзакцией, сама отправка идёт вне транзакции.
+     * Доставленное письмо удаляется, неудачная попытка откладывается с экспоненциальной задержкой,
+     * после max-attempts попыток или ответа 4xx письмо помечается FAILED.
+     * Проход продолжается, пока пачки приходят полными.
+     * Пачку размером batch-size, набранную за poll-interval, можно отправить одним запросом (batch-dispatch).
+     * Пачки отправляются в пуле emailTaskExecutor. Если пул переполнен, пачка возвращается в outbox
+     * и проход заканчивается до следующего запуска. В режиме виртуальных потоков пул не отклоняет задачи,
+     * а проход ждёт, пока освободится место.
+     */
+    @Scheduled(fixedDelayString = "${confirmation-code.outbox.poll-interval}")
+    public void relay(){
+        List<EmailOutboxMessage> batch;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            batch = this.emailOutboxRepository.claimBatch(now, now.plus(this.lease), this.batchSize);
+            if (batch.isEmpty() || !submit(batch)) return;
+        } while (batch.size() == this.batchSize && !Thread.currentThread().isInterrupted());
+    }
+
+    private boolean submit(List<EmailOutboxMessage> batch){
+        try {
+            this.emailTaskExecutor.execute(() -> dispatch(batch));
+            return true;
+        } catch (RejectedExecutionException | ServiceOverloadedException e) {
+            log.warn("email executor is saturated, returning {} messages to the outbox", batch.size());
+            this.emailOutboxRepository.release(batch.stream().map(EmailOutboxMessage::getId).toList(),
+                    LocalDateTime.now());
+            return false;
+        }
+    }
+
+    private void dispatch(List<EmailOutboxMessage> batch){
+        if (this.batchDispatch && batch.size() > 1) {
+            deliverBatch(batch);
+        } else {
+            batch.forEach(this::deliver);
+        }
+    }
+
+    /**
+     * Метод отправляет пачку писем одним запросом и разбирает результат по каждому письму.
+     * Если email-service не поддерживает пакетную отправку или отклонил пачку целиком (400), письма отправляются
+     * по одному: так отклонённые письма помечаются FAILED отдельно, а остальные доставляются.
+     * При любой другой ошибке пакетного запроса все письма пачки откладываются для повтора:
+     * отправка по одному к недоступному сервису только умножила бы число неудачных запросов.
+     * Письма, которых нет в ответе, тоже откладываются для повтора.
+     */
+    private void deliverBatch(List<EmailOutboxMessage> batch){
+        Map<Long, EmailOutboxMessage> pending = new LinkedHashMap<>();
+        List<SendEmailBatchItem> items = new ArrayList<>(batch.size());
+        for (EmailOutboxMessage message : batch) {
+            try {
+                SendEmailRequest sendEmailRequest = readPayload(message);
+                items.add(new SendEmailBatchItem(message.getId(), sendEmailRequest.getCode(), sendEmailRequest.getUser()));
+                pending.put(message.getId(), message);
+            } catch (IllegalStateException e) {
+                fail(message, e);
+            }
+        }
+        if (items.isEmpty()) return;
+
+        this.batchSizeSummary.record(items.size());
+        SendEmailBatchResponse response;
+        Timer.Sample sample = Timer.start();
+        try {
+            response = this.emailClient.sendBatch(new SendEmailBatchRequest(items));
+        } catch (UnsupportedEndpointException e) {
+            log.warn("email batch endpoint is not supported, falling back to single sends");
+            pending.values().forEach(this::deliver);
+            return;
+        } catch (ValidationException e) {
+            log.warn("email batch of {} was rejected, isolating messages with single sends", items.size(), e);
+            pending.values().forEach(this::deliver);
+            return;
+        } catch (RuntimeException e) {
+            log.warn("email batch of {} failed, rescheduling", items.size(), e);
+            String error = describe(e);
+            pending.values().forEach(message -> retry(message, error));
+            return;
+        } finally {
+            sample.stop(this.batchFlushTimer);
+        }
+
+        List<Long> sent = new ArrayList<>(items.size());
+        if (response != null && response.getResults() != null) {
+            for (SendEmailBatchItemResult result : response.getResults()) {
+                EmailOutboxMessage message = pending.remove(result.getId());
+                if (message == null) continue;
+
+                switch (result.getStatus()) {
+                    case SENT -> sent.add(message.getId());
+                    case REJECTED -> fail(message, result.getError());
+                    case FAILED -> retry(message, result.getError());
+                }
+            }
+        }
+        pending.values().forEach(message -> retry(message, "missing in batch response"));
+
+        if (!sent.isEmpty()) {
+            this.emailOutboxRepository.deleteAllByIdInBatch(sent);
+            this.sentCounter.increment(sent.size());
+        }
+    }
+
+    private void deliver(EmailOutboxMessage message){
+        try {
+            this.emailClient.sendEmail(readPayload(message));
+            this.emailOutboxRepository.deleteById(message.getId());
+            this.sentCounter.increment();
+        } catch (ValidationException | NotFoundException | IllegalStateException e) {
+            fail(message, e);
+        } catch (RuntimeException e) {
+            retry(message, describe(e));
+        }
+    }
+
+    private void retry(EmailOutboxMessage message, String error){
+        if (message.getAttempts() >= this.maxAttempts) {
+            fail(message, error);
+            return;
+        }
+        this.emailOutboxRepository.reschedule(message.getId(),
+                LocalDateTime.now().plus(backoff(message.getAttempts())), error);
+        this.retriedCounter.increment();
+    }
+
+    private void fail(EmailOutboxMessage message, RuntimeException e){
+        log.error("email outbox message {} failed after {} attempts", message.getId(), message.getAttempts(), e);
+        markFailed(message, describe(e));
+    }
+
+    private void fail(EmailOutboxMessage message, String error){
+        log.error("email outbox message {} failed after {} attempts: {}", message.getId(), message.getAttempts(), error);
+        markFailed(message, error);
+    }
+
+    private void markFailed(EmailOutboxMessage message, String error){
+        this.emailOutboxRepository.markFailed(message.getId(), error);
+        this.failedCounter.increment();
+    }
+
+    private Duration backoff(int attempts){
+        Duration backoff = this.initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(this.maxBackoff) > 0 ? this.maxBackoff : backoff;
+    }
+
+    private SendEmailRequest readPayload(EmailOutboxMessage message){
+        try {
+            return this.objectMapper.readValue(message.getPayload(), SendEmailRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("SendEmailRequest deserialization failed", e);
+        }
+    }
+
+    private static String describe(RuntimeException e){
+        return e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+}
@@ -0,0 +1,82 @@
+package ru.stroy1click.confirmationcode.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.repository.ConfirmationCodeRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("${confirmation-code.sweeper.enabled:true} and '${confirmation-code.store.type:jpa}' == 'jpa'")
+public class ExpiredConfirmationCodeSweeper {
+
+    private final ConfirmationCodeRepository confirmationCodeRepository;
+
+    private final int batchSize;
+
+    private final Duration pause;
+
+    private final int maxBatchesPerRun;
+
+    private final Counter purgedCounter;
+
+    private final Timer batchTimer;
+
+    public ExpiredConfirmationCodeSweeper(ConfirmationCodeRepository confirmationCodeRepository,
+                                          MeterRegistry meterRegistry,
+                                          @Value(value = "${confirmation-code.sweeper.batch-size}") int batchSize,
+                                          @Value(value = "${confirmation-code.sweeper.pause}") Duration pause,
+                                          @Value(value = "${confirmation-code.sweeper.max-batches-per-run}") int maxBatchesPerRun){
+        this.confirmationCodeRepository = confirmationCodeRepository;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.purgedCounter = Counter.builder("confirmation_code.sweeper.purged")
+                .description("Количество удалённых просроченных кодов подтверждения")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("confirmation_code.sweeper.batch")
+                .description("Время удаления одной пачки просроченных кодов подтверждения")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод удаляет просроченные коды подтверждения небольшими пачками.
+     * Каждая пачка удаляется в отдельной короткой транзакции, между пачками делается пауза,
+     * чтобы не держать долгие блокировки и не создавать всплесков WAL.
+     * Проход заканчивается, когда очередная пачка оказалась неполной или достигнут лимит пачек за запуск.
+     */
+    @Scheduled(fixedDelayString = "${confirmation-code.sweeper.interval}",
+            initialDelayString = "${confirmation-code.sweeper.interval}")
+    public void sweep(){
+        int purged = 0;
+        for (int batch = 0; batch < this.maxBatchesPerRun; batch++) {
+            Integer deleted = this.batchTimer.record(() ->
+                    this.confirmationCodeRepository.deleteExpiredBatch(LocalDateTime.now(), this.batchSize));
+            if (deleted == null || deleted == 0) break;
+
+            purged += deleted;
+            this.purgedCounter.increment(deleted);
+
+            if (deleted < this.batchSize || !pauseBetweenBatches()) break;
+        }
+        if (purged > 0) log.info("sweep purged {} expired confirmation codes", purged);
+    }
+
+    private boolean pauseBetweenBatches(){
+        try {
+            Thread.sleep(this.pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
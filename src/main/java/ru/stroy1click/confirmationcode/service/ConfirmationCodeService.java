@@ -1,16 +1,21 @@
 package ru.stroy1click.confirmationcode.service;
 
 import ru.stroy1click.confirmationcode.model.CodeVerificationRequest;
+import ru.stroy1click.confirmationcode.model.ConfirmationCodeOutcome;
 import ru.stroy1click.confirmationcode.model.CreateConfirmationCodeRequest;
 import ru.stroy1click.confirmationcode.model.UpdatePasswordRequest;
 
+/**
+ * Ожидаемые отказы (код уже отправлен, неверный, истёк, не найден ...) возвращаются как ConfirmationCodeOutcome,
+ * исключения остаются для ошибок внешних сервисов и инфраструктуры.
+ */
 public interface ConfirmationCodeService {
 
-    void create(CreateConfirmationCodeRequest codeRequest);
+    ConfirmationCodeOutcome create(CreateConfirmationCodeRequest codeRequest);
 
-    void recreate(CreateConfirmationCodeRequest codeRequest);
+    ConfirmationCodeOutcome recreate(CreateConfirmationCodeRequest codeRequest);
 
-    void verifyEmail(CodeVerificationRequest codeRequest);
+    ConfirmationCodeOutcome verifyEmail(CodeVerificationRequest codeRequest);
 
-    void updatePassword(UpdatePasswordRequest passwordRequest);
+    ConfirmationCodeOutcome updatePassword(UpdatePasswordRequest passwordRequest);
 }
@@ -0,0 +1,8 @@
+package ru.stroy1click.confirmationcode.service;
+
+import ru.stroy1click.confirmationcode.model.SendEmailRequest;
+
+public interface EmailOutboxService {
+
+    void enqueue(SendEmailRequest sendEmailRequest);
+}
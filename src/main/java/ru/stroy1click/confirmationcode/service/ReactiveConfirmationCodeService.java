@@ -0,0 +1,18 @@
+package ru.stroy1click.confirmationcode.service;
+
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.model.CodeVerificationRequest;
+import ru.stroy1click.confirmationcode.model.ConfirmationCodeOutcome;
+import ru.stroy1click.confirmationcode.model.CreateConfirmationCodeRequest;
+import ru.stroy1click.confirmationcode.model.UpdatePasswordRequest;
+
+public interface ReactiveConfirmationCodeService {
+
+    Mono<ConfirmationCodeOutcome> create(CreateConfirmationCodeRequest codeRequest);
+
+    Mono<ConfirmationCodeOutcome> recreate(CreateConfirmationCodeRequest codeRequest);
+
+    Mono<ConfirmationCodeOutcome> verifyEmail(CodeVerificationRequest codeRequest);
+
+    Mono<ConfirmationCodeOutcome> updatePassword(UpdatePasswordRequest passwordRequest);
+}
@@ -2,237 +2,243 @@ package ru.stroy1click.confirmationcode.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.MessageSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.stroy1click.confirmationcode.client.AuthClient;
-import ru.stroy1click.confirmationcode.client.EmailClient;
 import ru.stroy1click.confirmationcode.client.UserClient;
-import ru.stroy1click.confirmationcode.dto.UserDto;
-import ru.stroy1click.confirmationcode.entity.ConfirmationCode;
-import ru.stroy1click.confirmationcode.exception.NotFoundException;
-import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.exception.ServiceErrorResponseException;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.generator.ConfirmationCodeGenerator;
+import ru.stroy1click.confirmationcode.lockout.FailedAttemptGuard;
 import ru.stroy1click.confirmationcode.model.*;
-import ru.stroy1click.confirmationcode.repository.ConfirmationCodeRepository;
 import ru.stroy1click.confirmationcode.service.ConfirmationCodeService;
+import ru.stroy1click.confirmationcode.service.EmailOutboxService;
 import ru.stroy1click.confirmationcode.service.JwtService;
+import ru.stroy1click.confirmationcode.store.ConfirmationCodeStore;
 
-import java.time.LocalDateTime;
-import java.util.Locale;
+import java.time.Duration;
 import java.util.Objects;
-import java.util.Random;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Сервис не транзакционный целиком: вызовы во внешние сервисы выполняются без транзакции и без соединения с БД,
+ * а обращения к базе идут короткими командами хранилища. Код и письмо в outbox фиксируются одной транзакцией
+ * через TransactionOperations.
+ * Ожидаемые отказы возвращаются как ConfirmationCodeOutcome без исключений и без сообщений: текст ответа
+ * по outcome собирает контроллер.
+ * Только для сервлетного стека: в профиле reactive запросы обслуживает ReactiveConfirmationCodeServiceImpl.
+ */
 @Slf4j
 @Service
-@Transactional
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class ConfirmationCodeServiceImpl implements ConfirmationCodeService {
 
-    private final ConfirmationCodeRepository confirmationCodeRepository;
+    private final ConfirmationCodeStore confirmationCodeStore;
 
     private final AuthClient authClient;
 
     private final UserClient userClient;
 
-    private final static Integer EXPIRATION = 24;
-
-    private final Random random = new Random();
+    private final static Duration EXPIRATION = Duration.ofHours(24);
 
-    private final MessageSource messageSource;
+    private final ConfirmationCodeGenerator confirmationCodeGenerator;
 
-    private final EmailClient emailClient;
+    private final EmailOutboxService emailOutboxService;
 
     private final JwtService jwtService;
 
+    private final FailedAttemptGuard failedAttemptGuard;
+
+    @Qualifier("downstreamTaskExecutor")
+    private final Executor downstreamTaskExecutor;
+
+    private final TransactionOperations transactionOperations;
+
     /**
      * Метод создает новый код подтверждения для пользователя.
      * Код подтверждения уникален для каждого пользователя и имеет тип.
-     * Метод проверяет, существует ли у пользователя уже код подтверждения с таким же типом.
-     * Если у пользователя уже есть код подтверждения с таким типом, метод выбрасывает ValidationException.
-     * Метод сохраняет код подтверждения в бд и отправляет в email-service запрос на отправку электронного письма.
+     * Если у пользователя уже есть действующий код подтверждения с таким типом, метод возвращает ALREADY_SENT.
+     * Просроченный код при этом заменяется новым.
+     * Пользователь запрашивается у user-service до открытия транзакции. Код сохраняется в хранилище,
+     * и в той же короткой транзакции письмо ставится в outbox для отправки в email-service.
      */
     @Override
-    public void create(CreateConfirmationCodeRequest codeRequest) {
-        UserDto user = this.userClient.getByEmail(codeRequest.getEmail());
-
-        Integer countOfConfirmationCode = countCodesByTypeAndUser(user.getEmail(), codeRequest);
-
-        if(countOfConfirmationCode >= 1){ //The capacities allow you to send only 1 email
-            throw new ValidationException(
-                    this.messageSource.getMessage(
-                            "error.confirmation_code.already_sent",
-                            null,
-                            Locale.getDefault()
-                    )
-            );
-        }
+    public ConfirmationCodeOutcome create(CreateConfirmationCodeRequest codeRequest) {
+        UserProjection user = this.userClient.getByEmail(codeRequest.getEmail());
+
+        if(isEmailAlreadyConfirmed(user, codeRequest)) return ConfirmationCodeOutcome.EMAIL_ALREADY_CONFIRMED;
+
+        Integer code = this.confirmationCodeGenerator.nextCode();
 
-        checkTheEmailConfirmation(user, codeRequest);
+        boolean saved = Boolean.TRUE.equals(this.transactionOperations.execute(status -> {
+            boolean inserted = this.confirmationCodeStore.saveIfAbsent(codeRequest.getConfirmationCodeType(),
+                    user.email(), code, EXPIRATION);
+            if (inserted) sendEmail(code, user);
+            return inserted;
+        }));
 
-        ConfirmationCode confirmationCode = this.confirmationCodeRepository.save(new ConfirmationCode(
-                null, this.random.nextInt(1_000_000, 9_999_999),LocalDateTime.now().plusHours(EXPIRATION),
-                codeRequest.getConfirmationCodeType(), user.getEmail()
-        ));
+        if(!saved) return ConfirmationCodeOutcome.ALREADY_SENT; //The capacities allow you to send only 1 email
 
-        sendEmail(confirmationCode.getCode(), user);
+        this.failedAttemptGuard.reset(codeRequest.getConfirmationCodeType(), user.email());
+        return ConfirmationCodeOutcome.SENT;
     }
 
     /**
     * Метод повторно создает код подтверждения для пользователя.
     * Код подтверждения уникален для каждого пользователя и имеет тип.
-    * Метод проверяет, существует ли у пользователя уже код подтверждения с таким же типом.
-    * Если у пользователя уже есть код подтверждения с таким типом, метод удаляет старый код подтверждения и создает новый.
-    * Если у пользователя нет кода подтверждения с таким типом, метод выбрасывает ValidationException.
-    * Метод сохраняет код подтверждения в бд и отправляет в email-service запрос на отправку электронного письма.
+    * Если у пользователя нет кода подтверждения с таким типом, метод возвращает RECREATE_FAILED.
+    * Пользователь запрашивается у user-service до открытия транзакции. Код заменяется в хранилище,
+    * и в той же короткой транзакции письмо ставится в outbox для отправки в email-service.
     */
     @Override
-    public void recreate(CreateConfirmationCodeRequest codeRequest) {
-        UserDto user = this.userClient.getByEmail(codeRequest.getEmail());
-
-        Integer countOfConfirmationCode = countCodesByTypeAndUser(user.getEmail(), codeRequest);
-
-        if(countOfConfirmationCode  == 0){ //не можем пересоздать код подтверждения, если его даже не было никогда
-            throw new ValidationException(
-                    this.messageSource.getMessage(
-                            "error.confirmation_code.recreate_failed",
-                            null,
-                            Locale.getDefault()
-                    )
-            );
-        }
+    public ConfirmationCodeOutcome recreate(CreateConfirmationCodeRequest codeRequest) {
+        UserProjection user = this.userClient.getByEmail(codeRequest.getEmail());
+
+        if(isEmailAlreadyConfirmed(user, codeRequest)) return ConfirmationCodeOutcome.EMAIL_ALREADY_CONFIRMED;
 
-        this.confirmationCodeRepository.deleteByTypeAndUserEmail(codeRequest.getConfirmationCodeType(), user.getEmail());
+        Integer code = this.confirmationCodeGenerator.nextCode();
 
-        checkTheEmailConfirmation(user, codeRequest);
+        boolean updated = Boolean.TRUE.equals(this.transactionOperations.execute(status -> {
+            boolean replaced = this.confirmationCodeStore.replaceIfPresent(codeRequest.getConfirmationCodeType(),
+                    user.email(), code, EXPIRATION);
+            if (replaced) sendEmail(code, user);
+            return replaced;
+        }));
 
-        ConfirmationCode confirmationCode = this.confirmationCodeRepository.save(new ConfirmationCode(
-                null, this.random.nextInt(1_000_000, 9_999_999), LocalDateTime.now().plusHours(EXPIRATION),
-                codeRequest.getConfirmationCodeType(), user.getEmail()
-        ));
+        if(!updated) return ConfirmationCodeOutcome.RECREATE_FAILED; //не можем пересоздать код подтверждения, если его даже не было никогда
 
-        sendEmail(confirmationCode.getCode(), user);
+        this.failedAttemptGuard.reset(codeRequest.getConfirmationCodeType(), user.email());
+        return ConfirmationCodeOutcome.SENT;
     }
 
     /**
     * Метод подтверждает электронную почту пользователя.
-    * Метод проверяет, действителен ли запрос на подтверждение кода.
-    * Если запрос на подтверждение кода действителен, метод обновляет статус подтверждения электронной почты пользователя и удаляет код подтверждения.
-    * Если запрос на подтверждение кода недействителен, метод выбрасывает ValidationException.
+    * Код проверяется и удаляется атомарно, поэтому параллельные повторы запроса не могут использовать его дважды.
+    * Если код подтверждения был действителен, метод обновляет статус подтверждения электронной почты пользователя.
+    * Если user-service не обновил статус, код восстанавливается, чтобы пользователь мог повторить запрос.
+    * Если код не принят, метод возвращает причину отказа (NOT_FOUND, INVALID, EXPIRED, LOCKED).
     */
     @Override
-    public void verifyEmail(CodeVerificationRequest codeRequest) {
-        ConfirmationCode confirmationCode = this.confirmationCodeRepository.findByTypeAndUserEmail(Type.EMAIL, codeRequest.getEmail())
-                .orElseThrow(() -> new NotFoundException(
-                        this.messageSource.getMessage(
-                                "error.confirmation_code.not_found",
-                                null,
-                                Locale.getDefault()
-                        )
-                ));
-
-        if(Objects.equals(confirmationCode.getCode(), codeRequest.getCode()) && LocalDateTime.now().isBefore(confirmationCode.getExpirationDate())){
+    public ConfirmationCodeOutcome verifyEmail(CodeVerificationRequest codeRequest) {
+        ConfirmationCodeOutcome rejection = consumeCode(Type.EMAIL, codeRequest);
+        if (rejection != null) return rejection;
+
+        try {
             this.userClient.updateEmailConfirmedStatus(new ConfirmEmailRequest(codeRequest.getEmail()));
-            this.confirmationCodeRepository.deleteById(confirmationCode.getId());
-        } else {
-            throw new ValidationException(
-                    this.messageSource.getMessage(
-                            "error.confirmation_code.not_valid",
-                            null,
-                            Locale.getDefault()
-                    )
-            );
+        } catch (RuntimeException e) {
+            restoreCode(Type.EMAIL, codeRequest);
+            throw e;
         }
+        return ConfirmationCodeOutcome.EMAIL_CONFIRMED;
     }
 
      /**
     * Метод обновляет пароль пользователя.
-    * Метод проверяет, действителен ли запрос на подтверждение кода.
-    * Если запрос на подтверждение кода действителен, метод обновляет пароль пользователя и удаляет код подтверждения.
-    * Если запрос на подтверждение кода недействителен, метод выбрасывает ValidationException.
-    * Метод также удаляет все refresh-токены пользователя.
+    * Метод проверяет совпадение паролей, затем атомарно проверяет и удаляет код подтверждения.
+    * Если код подтверждения был действителен, метод параллельно на downstreamTaskExecutor обновляет пароль пользователя
+    * и удаляет все его refresh-токены, поэтому пользователь ждёт самый медленный из двух вызовов, а не их сумму.
+    * Код удаляется собственной командой хранилища, соединение с БД не удерживается на время запросов во внешние сервисы.
+    * Временный сбой внешнего сервиса повторяется один раз. Если вызов так и не удался, код подтверждения
+    * восстанавливается, чтобы пользователь мог повторить запрос, а ошибка пробрасывается дальше.
+    * Если пароли не совпадают или код не принят, метод возвращает причину отказа.
     * @param passwordRequest запрос с новым паролем и кодом подтверждения.
     */
     @Override
-    public void updatePassword(UpdatePasswordRequest passwordRequest) {
-        ConfirmationCode confirmationCode =  this.confirmationCodeRepository.findByTypeAndUserEmail(Type.PASSWORD,
-                        passwordRequest.getCodeVerificationRequest().getEmail())
-                .orElseThrow(() -> new NotFoundException(this.messageSource.getMessage(
-                        "error.confirmation_code.not_found",
-                        null,
-                        Locale.getDefault()
-                )));
-
-        if(!Objects.equals(confirmationCode.getCode(), passwordRequest.getCodeVerificationRequest().getCode()) ||
-                LocalDateTime.now().isAfter(confirmationCode.getExpirationDate())){
-            throw new ValidationException(
-                    this.messageSource.getMessage(
-                            "error.confirmation_code.not_valid",
-                            null,
-                            Locale.getDefault()
-                    )
-            );
-        }
+    public ConfirmationCodeOutcome updatePassword(UpdatePasswordRequest passwordRequest) {
         if(!Objects.equals(passwordRequest.getNewPassword(), passwordRequest.getConfirmPassword())){
-            throw new ValidationException(
-                    this.messageSource.getMessage(
-                            "error.password.not_match",
-                            null,
-                            Locale.getDefault()
-                    )
-            );
+            return ConfirmationCodeOutcome.PASSWORD_MISMATCH;
         }
 
-        this.confirmationCodeRepository.deleteByCode(confirmationCode.getCode());
-        this.authClient.logoutOnAllDevices(passwordRequest.getCodeVerificationRequest().getEmail(),
-                this.jwtService.generateToken());
-        this.userClient.updatePassword(new UserServiceUpdatePasswordRequest(passwordRequest.getNewPassword(),
-                passwordRequest.getCodeVerificationRequest().getEmail()));
+        CodeVerificationRequest codeRequest = passwordRequest.getCodeVerificationRequest();
+        ConfirmationCodeOutcome rejection = consumeCode(Type.PASSWORD, codeRequest);
+        if (rejection != null) return rejection;
+
+        try {
+            String jwt = this.jwtService.generateToken();
+            CompletableFuture.allOf(
+                    callDownstream(() -> this.authClient.logoutOnAllDevices(codeRequest.getEmail(), jwt)),
+                    callDownstream(() -> this.userClient.updatePassword(new UserServiceUpdatePasswordRequest(
+                            passwordRequest.getNewPassword(), codeRequest.getEmail())))
+            ).join();
+        } catch (RuntimeException e) {
+            restoreCode(Type.PASSWORD, codeRequest);
+            throw e instanceof CompletionException && e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return ConfirmationCodeOutcome.PASSWORD_UPDATED;
     }
 
-      /**
-    * Метод проверяет, подтвердил ли пользователь свою электронную почту.
-    * Если пользователь уже подтвердил свою электронную почту и тип кода подтверждения - EMAIL,
-    * метод выбрасывает ValidationException.
-    * @param user пользователь для проверки.
-    * @param codeRequest запрос с типом кода подтверждения.
+    /**
+    * Компенсация неудачного сценария: возвращает использованный код подтверждения со свежим сроком действия.
+    * Ошибка восстановления только логируется, чтобы наружу ушла исходная ошибка внешнего сервиса.
     */
-    private void checkTheEmailConfirmation(UserDto user, CreateConfirmationCodeRequest codeRequest){
-        if(user.getEmailConfirmed() && codeRequest.getConfirmationCodeType() == Type.EMAIL){
-            throw new ValidationException(
-                    this.messageSource.getMessage(
-                            "error.email.already_confirmed",
-                            null,
-                            Locale.getDefault()
-                    )
-            );
+    private void restoreCode(Type type, CodeVerificationRequest codeRequest){
+        try {
+            this.confirmationCodeStore.saveIfAbsent(type, codeRequest.getEmail(), codeRequest.getCode(), EXPIRATION);
+        } catch (RuntimeException e) {
+            log.error("restoreCode error {}", codeRequest.getEmail(), e);
         }
     }
 
-     /**
-    * Метод подсчитывает количество кодов подтверждения пользователя по типу.
-    * Метод возвращает количество кодов подтверждения.
-    * @param email пользователь, для которого подсчитываются коды подтверждения.
+    /**
+    * Метод запускает вызов внешнего сервиса на downstreamTaskExecutor.
+    * Временная ошибка (503, 500, недоступность) повторяется один раз, открытый circuit breaker - нет.
+    */
+    private CompletableFuture<Void> callDownstream(Runnable call){
+        return CompletableFuture.runAsync(() -> {
+            try {
+                call.run();
+            } catch (ServiceUnavailableException | ServiceErrorResponseException e) {
+                log.warn("downstream call failed, retrying once", e);
+                call.run();
+            }
+        }, this.downstreamTaskExecutor);
+    }
+
+    /**
+    * Метод атомарно проверяет и удаляет код подтверждения.
+    * Если для пары (type, email) превышено число неудачных попыток, метод сразу возвращает LOCKED,
+    * не обращаясь к хранилищу. Последняя допустимая неудачная попытка удаляет код.
+    * @param type тип кода подтверждения.
+    * @param codeRequest запрос с почтой пользователя и кодом подтверждения.
+    * @return причина отказа (LOCKED, NOT_FOUND, INVALID, EXPIRED) или null, если код принят.
+    */
+    private ConfirmationCodeOutcome consumeCode(Type type, CodeVerificationRequest codeRequest){
+        if (this.failedAttemptGuard.isLocked(type, codeRequest.getEmail())) return ConfirmationCodeOutcome.LOCKED;
+
+        return switch (this.confirmationCodeStore.consume(type, codeRequest.getEmail(), codeRequest.getCode())) {
+            case CONSUMED -> {
+                this.failedAttemptGuard.reset(type, codeRequest.getEmail());
+                yield null;
+            }
+            case NOT_FOUND -> ConfirmationCodeOutcome.NOT_FOUND;
+            case INVALID -> {
+                if (this.failedAttemptGuard.recordFailure(type, codeRequest.getEmail())) {
+                    this.confirmationCodeStore.invalidate(type, codeRequest.getEmail());
+                }
+                yield ConfirmationCodeOutcome.INVALID;
+            }
+            case EXPIRED -> ConfirmationCodeOutcome.EXPIRED;
+        };
+    }
+
+      /**
+    * Метод проверяет, подтвердил ли пользователь свою электронную почту.
+    * @param user пользователь для проверки.
     * @param codeRequest запрос с типом кода подтверждения.
-    * @return количество кодов подтверждения.
+    * @return true, если почта уже подтверждена и тип кода подтверждения - EMAIL.
     */
-    private Integer countCodesByTypeAndUser(String email, CreateConfirmationCodeRequest codeRequest){
-        Integer count = 0;
-        switch(codeRequest.getConfirmationCodeType()){
-            case EMAIL -> count += this.confirmationCodeRepository.countByTypeAndUserEmail(Type.EMAIL, email);
-            case PASSWORD -> count += this.confirmationCodeRepository.countByTypeAndUserEmail(Type.PASSWORD, email);
-            default -> throw new ValidationException(
-                    this.messageSource.getMessage(
-                            "error.confirmation_code.not_valid",
-                            null,
-                            Locale.getDefault()
-                    )
-            );
-        }
-        return count;
+    private boolean isEmailAlreadyConfirmed(UserProjection user, CreateConfirmationCodeRequest codeRequest){
+        return user.emailConfirmed() && codeRequest.getConfirmationCodeType() == Type.EMAIL;
     }
 
-    private void sendEmail(Integer code, UserDto user){
-        SendEmailRequest sendEmailRequest = new SendEmailRequest(code, user);
-        this.emailClient.sendEmail(sendEmailRequest);
+    private void sendEmail(Integer code, UserProjection user){
+        SendEmailRequest sendEmailRequest = new SendEmailRequest(code, user.toUserDto());
+        this.emailOutboxService.enqueue(sendEmailRequest);
     }
-}
\ No newline at end of file
+}
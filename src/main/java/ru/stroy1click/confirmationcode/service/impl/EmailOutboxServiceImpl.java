@@ -0,0 +1,50 @@
+package ru.stroy1click.confirmationcode.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.stroy1click.confirmationcode.entity.EmailOutboxMessage;
+import ru.stroy1click.confirmationcode.model.OutboxStatus;
+import ru.stroy1click.confirmationcode.model.SendEmailRequest;
+import ru.stroy1click.confirmationcode.repository.EmailOutboxRepository;
+import ru.stroy1click.confirmationcode.service.EmailOutboxService;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Метод сохраняет письмо в outbox-таблицу.
+     * Вызывается только внутри уже открытой транзакции, чтобы письмо фиксировалось вместе с кодом подтверждения.
+     * Доставкой писем в email-service занимается EmailOutboxRelay.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(SendEmailRequest sendEmailRequest) {
+        LocalDateTime now = LocalDateTime.now();
+        this.emailOutboxRepository.save(EmailOutboxMessage.builder()
+                .payload(writePayload(sendEmailRequest))
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    private String writePayload(SendEmailRequest sendEmailRequest){
+        try {
+            return this.objectMapper.writeValueAsString(sendEmailRequest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("SendEmailRequest serialization failed", e);
+        }
+    }
+}
@@ -4,39 +4,113 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.stroy1click.confirmationcode.service.JwtService;
 
 import java.security.Key;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Сервисный токен для вызовов auth-service. Claims постоянные, поэтому токен подписывается один раз и переиспользуется.
+ * Когда до истечения остаётся меньше refresh-ahead, вызывающий поток получает текущий токен,
+ * а новый подписывается в фоне одной задачей на все потоки.
+ * Синхронно токен подписывается только если текущий уже истёк, например после долгой остановки процесса.
+ */
+@Slf4j
 @Component
 public class JwtServiceImpl implements JwtService {
 
-    @Value(value = "${jwt.secret}")
-    private String SECRET;
+    private static final Duration TOKEN_TTL = Duration.ofMinutes(300);
+
+    private static final Map<String, Object> CLAIMS = Map.of(
+            "role", "ROLE_ADMIN",
+            "emailConfirmed", "true"
+    );
+
+    private final Key signKey;
+
+    private final Duration refreshAhead;
+
+    private final Clock clock;
+
+    private final Executor refreshExecutor;
+
+    private final AtomicReference<SignedToken> token = new AtomicReference<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    @Autowired
+    public JwtServiceImpl(@Value(value = "${jwt.secret}") String secret,
+                          @Value(value = "${jwt.refresh-ahead}") Duration refreshAhead){
+        this(secret, refreshAhead, Clock.systemUTC(), ForkJoinPool.commonPool());
+    }
+
+    public JwtServiceImpl(String secret, Duration refreshAhead, Clock clock, Executor refreshExecutor){
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.refreshAhead = refreshAhead;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+        this.token.set(sign());
+    }
 
     public String generateToken() {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("role", "ROLE_ADMIN");
-        claims.put("emailConfirmed", "true");
-        return createToken(claims);
+        SignedToken current = this.token.get();
+        long now = this.clock.millis();
+
+        if (now >= current.expiresAtMillis) return signExpired().value;
+        if (now >= current.expiresAtMillis - this.refreshAhead.toMillis()) refreshInBackground();
+
+        return current.value;
+    }
+
+    private void refreshInBackground(){
+        if (!this.refreshing.compareAndSet(false, true)) return;
+        try {
+            this.refreshExecutor.execute(() -> {
+                try {
+                    this.token.set(sign());
+                } finally {
+                    this.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("service token refresh rejected, will retry on next call");
+            this.refreshing.set(false);
+        }
+    }
+
+    private synchronized SignedToken signExpired(){
+        SignedToken current = this.token.get();
+        if (this.clock.millis() < current.expiresAtMillis) return current;
+
+        SignedToken signed = sign();
+        this.token.set(signed);
+        return signed;
     }
 
-    private String createToken(Map<String, Object> claims) {
-        return Jwts.builder()
-                .setClaims(claims)
+    private SignedToken sign(){
+        long now = this.clock.millis();
+        long expiresAt = now + TOKEN_TTL.toMillis();
+        String value = Jwts.builder()
+                .setClaims(CLAIMS)
                 .setSubject("admin@gmail.com")
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 300))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(expiresAt))
+                .signWith(this.signKey, SignatureAlgorithm.HS256).compact();
+        return new SignedToken(value, expiresAt);
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private record SignedToken(String value, long expiresAtMillis) {
     }
 }
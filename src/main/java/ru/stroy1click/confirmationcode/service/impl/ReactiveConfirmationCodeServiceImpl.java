@@ -0,0 +1,180 @@
+package ru.stroy1click.confirmationcode.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.stroy1click.confirmationcode.client.ReactiveAuthClient;
+import ru.stroy1click.confirmationcode.client.ReactiveUserClient;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.generator.ConfirmationCodeGenerator;
+import ru.stroy1click.confirmationcode.lockout.FailedAttemptGuard;
+import ru.stroy1click.confirmationcode.model.*;
+import ru.stroy1click.confirmationcode.repository.ReactiveConfirmationCodeRepository;
+import ru.stroy1click.confirmationcode.service.JwtService;
+import ru.stroy1click.confirmationcode.service.ReactiveConfirmationCodeService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Неблокирующая реализация сценариев ConfirmationCodeServiceImpl для профиля reactive.
+ * Правила те же: один действующий код на (type, email), атомарное использование кода, блокировка после N ошибок.
+ * Ожидаемые отказы приходят значением ConfirmationCodeOutcome, а не сигналом ошибки.
+ * Коды хранятся только в Postgres, письма попадают в email_outbox той же командой, что и код,
+ * и доставляются существующим EmailOutboxRelay.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveConfirmationCodeServiceImpl implements ReactiveConfirmationCodeService {
+
+    private final ReactiveConfirmationCodeRepository confirmationCodeRepository;
+
+    private final ReactiveAuthClient authClient;
+
+    private final ReactiveUserClient userClient;
+
+    private final static Duration EXPIRATION = Duration.ofHours(24);
+
+    private final ConfirmationCodeGenerator confirmationCodeGenerator;
+
+    private final ObjectMapper objectMapper;
+
+    private final JwtService jwtService;
+
+    private final FailedAttemptGuard failedAttemptGuard;
+
+    @Override
+    public Mono<ConfirmationCodeOutcome> create(CreateConfirmationCodeRequest codeRequest) {
+        return this.userClient.getByEmail(codeRequest.getEmail())
+                .flatMap(user -> {
+                    if (isEmailAlreadyConfirmed(user, codeRequest)) {
+                        return Mono.just(ConfirmationCodeOutcome.EMAIL_ALREADY_CONFIRMED);
+                    }
+
+                    Integer code = this.confirmationCodeGenerator.nextCode();
+                    LocalDateTime now = LocalDateTime.now();
+                    return this.confirmationCodeRepository.insertIfAbsentOrExpired(code, now.plus(EXPIRATION),
+                                    codeRequest.getConfirmationCodeType(), user.email(), writePayload(code, user), now)
+                            .flatMap(saved -> saved
+                                    ? resetAttempts(codeRequest.getConfirmationCodeType(), user.email())
+                                            .thenReturn(ConfirmationCodeOutcome.SENT)
+                                    : Mono.just(ConfirmationCodeOutcome.ALREADY_SENT));
+                });
+    }
+
+    @Override
+    public Mono<ConfirmationCodeOutcome> recreate(CreateConfirmationCodeRequest codeRequest) {
+        return this.userClient.getByEmail(codeRequest.getEmail())
+                .flatMap(user -> {
+                    if (isEmailAlreadyConfirmed(user, codeRequest)) {
+                        return Mono.just(ConfirmationCodeOutcome.EMAIL_ALREADY_CONFIRMED);
+                    }
+
+                    Integer code = this.confirmationCodeGenerator.nextCode();
+                    LocalDateTime now = LocalDateTime.now();
+                    return this.confirmationCodeRepository.updateCodeIfPresent(code, now.plus(EXPIRATION),
+                                    codeRequest.getConfirmationCodeType(), user.email(), writePayload(code, user), now)
+                            .flatMap(updated -> updated
+                                    ? resetAttempts(codeRequest.getConfirmationCodeType(), user.email())
+                                            .thenReturn(ConfirmationCodeOutcome.SENT)
+                                    : Mono.just(ConfirmationCodeOutcome.RECREATE_FAILED));
+                });
+    }
+
+    @Override
+    public Mono<ConfirmationCodeOutcome> verifyEmail(CodeVerificationRequest codeRequest) {
+        return consumeCode(Type.EMAIL, codeRequest)
+                .switchIfEmpty(Mono.defer(() -> this.userClient.updateEmailConfirmedStatus(
+                                new ConfirmEmailRequest(codeRequest.getEmail()))
+                        .thenReturn(ConfirmationCodeOutcome.EMAIL_CONFIRMED)
+                        .onErrorResume(e -> restoreCode(Type.EMAIL, codeRequest).then(Mono.error(e)))));
+    }
+
+    /**
+     * После использования кода запросы в auth- и user-service независимы и выполняются параллельно.
+     * Если хотя бы один из них не удался, код возвращается, чтобы пользователь мог повторить запрос.
+     */
+    @Override
+    public Mono<ConfirmationCodeOutcome> updatePassword(UpdatePasswordRequest passwordRequest) {
+        if(!Objects.equals(passwordRequest.getNewPassword(), passwordRequest.getConfirmPassword())){
+            return Mono.just(ConfirmationCodeOutcome.PASSWORD_MISMATCH);
+        }
+
+        String email = passwordRequest.getCodeVerificationRequest().getEmail();
+        return consumeCode(Type.PASSWORD, passwordRequest.getCodeVerificationRequest())
+                .switchIfEmpty(Mono.defer(() -> Mono.when(
+                                Mono.fromCallable(this.jwtService::generateToken)
+                                        .subscribeOn(Schedulers.boundedElastic())
+                                        .flatMap(token -> this.authClient.logoutOnAllDevices(email, token)),
+                                this.userClient.updatePassword(new UserServiceUpdatePasswordRequest(
+                                        passwordRequest.getNewPassword(), email)))
+                        .thenReturn(ConfirmationCodeOutcome.PASSWORD_UPDATED)
+                        .onErrorResume(e -> restoreCode(Type.PASSWORD, passwordRequest.getCodeVerificationRequest())
+                                .then(Mono.error(e)))));
+    }
+
+    /**
+     * Ошибка возврата кода только логируется, чтобы клиент получил исходную ошибку внешнего сервиса.
+     */
+    private Mono<Void> restoreCode(Type type, CodeVerificationRequest codeRequest){
+        return this.confirmationCodeRepository.restore(codeRequest.getCode(), LocalDateTime.now().plus(EXPIRATION),
+                        type, codeRequest.getEmail())
+                .onErrorResume(e -> {
+                    log.error("restoreCode error {}", codeRequest.getEmail(), e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Счётчик неудачных попыток может жить в Redis, поэтому обращения к нему уходят с event loop на boundedElastic.
+     * @return причина отказа (LOCKED, NOT_FOUND, INVALID, EXPIRED) или пустой Mono, если код принят.
+     */
+    private Mono<ConfirmationCodeOutcome> consumeCode(Type type, CodeVerificationRequest codeRequest){
+        String email = codeRequest.getEmail();
+        return Mono.fromCallable(() -> this.failedAttemptGuard.isLocked(type, email))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(locked -> locked
+                        ? Mono.just(ConfirmationCodeOutcome.LOCKED)
+                        : this.confirmationCodeRepository.consume(type, email, codeRequest.getCode(), LocalDateTime.now())
+                                .flatMap(result -> consumeOutcome(type, email, result)));
+    }
+
+    private Mono<ConfirmationCodeOutcome> consumeOutcome(Type type, String email, ConsumeResult result){
+        return switch (result) {
+            case CONSUMED -> resetAttempts(type, email).then(Mono.<ConfirmationCodeOutcome>empty());
+            case NOT_FOUND -> Mono.just(ConfirmationCodeOutcome.NOT_FOUND);
+            case INVALID -> Mono.fromCallable(() -> this.failedAttemptGuard.recordFailure(type, email))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(lockedNow -> lockedNow
+                            ? this.confirmationCodeRepository.deleteByTypeAndUserEmail(type, email).then()
+                            : Mono.<Void>empty())
+                    .thenReturn(ConfirmationCodeOutcome.INVALID);
+            case EXPIRED -> Mono.just(ConfirmationCodeOutcome.EXPIRED);
+        };
+    }
+
+    private Mono<Void> resetAttempts(Type type, String email){
+        return Mono.<Void>fromRunnable(() -> this.failedAttemptGuard.reset(type, email))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private boolean isEmailAlreadyConfirmed(UserProjection user, CreateConfirmationCodeRequest codeRequest){
+        return user.emailConfirmed() && codeRequest.getConfirmationCodeType() == Type.EMAIL;
+    }
+
+    private String writePayload(Integer code, UserProjection user){
+        try {
+            return this.objectMapper.writeValueAsString(new SendEmailRequest(code, user.toUserDto()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("SendEmailRequest serialization failed", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.stroy1click.confirmationcode.store;
+
+import ru.stroy1click.confirmationcode.model.ConsumeResult;
+import ru.stroy1click.confirmationcode.model.Type;
+
+import java.time.Duration;
+
+/**
+ * Хранилище кодов подтверждения: (type, email) -> код со сроком действия.
+ * Реализация выбирается свойством confirmation-code.store.type.
+ */
+public interface ConfirmationCodeStore {
+
+    /**
+     * Сохраняет код, если у пользователя нет действующего кода такого типа. Просроченный код заменяется.
+     * @return true, если код сохранён; false, если у пользователя уже есть действующий код.
+     */
+    boolean saveIfAbsent(Type type, String email, Integer code, Duration ttl);
+
+    /**
+     * Заменяет код, если у пользователя уже есть код такого типа.
+     * @return true, если код заменён; false, если кода ещё не было.
+     */
+    boolean replaceIfPresent(Type type, String email, Integer code, Duration ttl);
+
+    /**
+     * Атомарно проверяет и удаляет код: один и тот же код нельзя использовать дважды.
+     */
+    ConsumeResult consume(Type type, String email, Integer code);
+
+    /**
+     * Удаляет код пользователя без проверки, например после превышения числа неудачных попыток.
+     */
+    void invalidate(Type type, String email);
+}
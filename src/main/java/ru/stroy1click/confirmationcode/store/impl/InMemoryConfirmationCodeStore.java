@@ -0,0 +1,139 @@
+package ru.stroy1click.confirmationcode.store.impl;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.model.ConsumeResult;
+import ru.stroy1click.confirmationcode.model.Type;
+import ru.stroy1click.confirmationcode.store.ConfirmationCodeStore;
+import ru.stroy1click.confirmationcode.util.HierarchicalTimingWheel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранилище кодов подтверждения в памяти процесса для одноузловых развёртываний и нагрузочных тестов.
+ * Коды лежат в ConcurrentHashMap, просроченные коды удаляются иерархическим колесом таймеров,
+ * которое раз в тик продвигает отдельный поток. Между тиками срок действия дополнительно проверяется при чтении.
+ */
+@Component
+@ConditionalOnProperty(name = "confirmation-code.store.type", havingValue = "memory")
+public class InMemoryConfirmationCodeStore implements ConfirmationCodeStore, DisposableBean {
+
+    private final ConcurrentMap<Key, StoredCode> codes = new ConcurrentHashMap<>();
+
+    private final HierarchicalTimingWheel<StoredCode> timingWheel;
+
+    private final ScheduledExecutorService ticker;
+
+    private final Clock clock;
+
+    @Autowired
+    public InMemoryConfirmationCodeStore(@Value(value = "${confirmation-code.store.memory.tick}") Duration tick,
+                                         @Value(value = "${confirmation-code.store.memory.wheel-size}") int wheelSize){
+        this(tick, wheelSize, Clock.systemUTC());
+    }
+
+    public InMemoryConfirmationCodeStore(Duration tick, int wheelSize, Clock clock){
+        this.clock = clock;
+        this.timingWheel = new HierarchicalTimingWheel<>(tick.toMillis(), wheelSize, clock.millis(), this::evict);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "confirmation-code-timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this::expireDue, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean saveIfAbsent(Type type, String email, Integer code, Duration ttl) {
+        long now = this.clock.millis();
+        StoredCode candidate = new StoredCode(new Key(type, email), code, now + ttl.toMillis());
+
+        StoredCode stored = this.codes.compute(candidate.key,
+                (key, existing) -> existing == null || existing.isExpired(now) ? candidate : existing);
+        if (stored != candidate) return false;
+
+        this.timingWheel.schedule(candidate, candidate.expiresAtMillis);
+        return true;
+    }
+
+    @Override
+    public boolean replaceIfPresent(Type type, String email, Integer code, Duration ttl) {
+        StoredCode candidate = new StoredCode(new Key(type, email), code, this.clock.millis() + ttl.toMillis());
+
+        StoredCode stored = this.codes.computeIfPresent(candidate.key, (key, existing) -> candidate);
+        if (stored != candidate) return false;
+
+        this.timingWheel.schedule(candidate, candidate.expiresAtMillis);
+        return true;
+    }
+
+    @Override
+    public ConsumeResult consume(Type type, String email, Integer code) {
+        Key key = new Key(type, email);
+        StoredCode stored = this.codes.get(key);
+
+        if (stored == null) return ConsumeResult.NOT_FOUND;
+        if (stored.isExpired(this.clock.millis())) return ConsumeResult.EXPIRED;
+        if (!stored.code.equals(code)) return ConsumeResult.INVALID;
+
+        //remove(key, value) удаляет только тот же самый объект, поэтому код не будет использован дважды
+        return this.codes.remove(key, stored) ? ConsumeResult.CONSUMED : ConsumeResult.INVALID;
+    }
+
+    @Override
+    public void invalidate(Type type, String email) {
+        this.codes.remove(new Key(type, email));
+    }
+
+    public int size(){
+        return this.codes.size();
+    }
+
+    /**
+     * Продвигает колесо таймеров до текущего времени. Вызывается потоком-тикером.
+     */
+    public synchronized void expireDue(){
+        this.timingWheel.advance(this.clock.millis());
+    }
+
+    @Override
+    public void destroy() {
+        this.ticker.shutdownNow();
+    }
+
+    private void evict(StoredCode storedCode){
+        //код мог быть заменён после постановки таймера - тогда удалять нечего
+        this.codes.remove(storedCode.key, storedCode);
+    }
+
+    private record Key(Type type, String email) {
+    }
+
+    private static final class StoredCode {
+
+        private final Key key;
+
+        private final Integer code;
+
+        private final long expiresAtMillis;
+
+        private StoredCode(Key key, Integer code, long expiresAtMillis) {
+            this.key = key;
+            this.code = code;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired(long nowMillis) {
+            return nowMillis >= this.expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.stroy1click.confirmationcode.store.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.model.ConsumeResult;
+import ru.stroy1click.confirmationcode.model.Type;
+import ru.stroy1click.confirmationcode.repository.ConfirmationCodeRepository;
+import ru.stroy1click.confirmationcode.store.ConfirmationCodeStore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "confirmation-code.store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaConfirmationCodeStore implements ConfirmationCodeStore {
+
+    private final ConfirmationCodeRepository confirmationCodeRepository;
+
+    @Override
+    public boolean saveIfAbsent(Type type, String email, Integer code, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        return this.confirmationCodeRepository.insertIfAbsentOrExpired(code, now.plus(ttl), type.name(), email, now)
+                .isPresent();
+    }
+
+    @Override
+    public boolean replaceIfPresent(Type type, String email, Integer code, Duration ttl) {
+        return this.confirmationCodeRepository.updateCodeIfPresent(code, LocalDateTime.now().plus(ttl), type.name(), email)
+                .isPresent();
+    }
+
+    /**
+     * Код проверяется и удаляется одной командой. Если строка не удалена,
+     * причина (нет кода, неверный код, истёк срок) выясняется отдельным запросом по уникальному индексу.
+     */
+    @Override
+    public ConsumeResult consume(Type type, String email, Integer code) {
+        LocalDateTime now = LocalDateTime.now();
+        if (this.confirmationCodeRepository.consumeValidCode(code, type.name(), email, now).isPresent()) {
+            return ConsumeResult.CONSUMED;
+        }
+        return this.confirmationCodeRepository.findByTypeAndUserEmail(type, email)
+                .map(confirmationCode -> confirmationCode.getExpirationDate().isAfter(now)
+                        ? ConsumeResult.INVALID
+                        : ConsumeResult.EXPIRED)
+                .orElse(ConsumeResult.NOT_FOUND);
+    }
+
+    @Override
+    public void invalidate(Type type, String email) {
+        this.confirmationCodeRepository.deleteByTypeAndUserEmail(type.name(), email);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.stroy1click.confirmationcode.store.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import ru.stroy1click.confirmationcode.model.ConsumeResult;
+import ru.stroy1click.confirmationcode.model.Type;
+import ru.stroy1click.confirmationcode.store.ConfirmationCodeStore;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Хранилище кодов подтверждения в Redis: один ключ на пару (type, email), срок действия - нативный TTL ключа.
+ * Создание - SET NX, пересоздание - SET XX, проверка и удаление - Lua-скрипт, выполняемый атомарно.
+ */
+@Component
+@ConditionalOnProperty(name = "confirmation-code.store.type", havingValue = "redis")
+public class RedisConfirmationCodeStore implements ConfirmationCodeStore {
+
+    private static final long NOT_FOUND = 0;
+
+    private static final long INVALID = 1;
+
+    /**
+     * GETDEL удалил бы код и при неверной попытке, поэтому сравнение и удаление делаются в одном скрипте.
+     */
+    private static final RedisScript<Long> CONSUME_SCRIPT = RedisScript.of("""
+            local stored = redis.call('GET', KEYS[1])
+            if not stored then return 0 end
+            if stored ~= ARGV[1] then return 1 end
+            redis.call('DEL', KEYS[1])
+            return 2
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String keyPrefix;
+
+    public RedisConfirmationCodeStore(StringRedisTemplate redisTemplate,
+                                      @Value(value = "${confirmation-code.store.redis.key-prefix}") String keyPrefix){
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public boolean saveIfAbsent(Type type, String email, Integer code, Duration ttl) {
+        return Boolean.TRUE.equals(this.redisTemplate.opsForValue()
+                .setIfAbsent(key(type, email), code.toString(), ttl));
+    }
+
+    @Override
+    public boolean replaceIfPresent(Type type, String email, Integer code, Duration ttl) {
+        return Boolean.TRUE.equals(this.redisTemplate.opsForValue()
+                .setIfPresent(key(type, email), code.toString(), ttl));
+    }
+
+    /**
+     * Просроченные ключи Redis удаляет сам, поэтому истёкший код неотличим от отсутствующего.
+     */
+    @Override
+    public ConsumeResult consume(Type type, String email, Integer code) {
+        Long result = this.redisTemplate.execute(CONSUME_SCRIPT, List.of(key(type, email)), code.toString());
+
+        if (result == null || result == NOT_FOUND) return ConsumeResult.NOT_FOUND;
+        if (result == INVALID) return ConsumeResult.INVALID;
+        return ConsumeResult.CONSUMED;
+    }
+
+    @Override
+    public void invalidate(Type type, String email) {
+        this.redisTemplate.delete(key(type, email));
+    }
+
+    private String key(Type type, String email){
+        return this.keyPrefix + type.name() + ":" + email;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.stroy1click.confirmationcode.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Иерархическое колесо таймеров.
+ * Уровень 0 хранит задачи, срабатывающие в ближайшие wheelSize тиков, каждый следующий уровень
+ * покрывает в wheelSize раз больший интервал. Когда младший уровень делает полный оборот,
+ * соответствующая ячейка старшего уровня раскладывается по младшим уровням.
+ * <p>
+ * {@link #schedule} можно вызывать из любых потоков: задачи копятся в неблокирующей очереди.
+ * {@link #advance} должен вызываться одним потоком - он переносит задачи из очереди в колесо
+ * и передаёт истёкшие задачи в обработчик.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+
+    private final int wheelSize;
+
+    private final int bitsPerLevel;
+
+    private final int mask;
+
+    private final Consumer<T> expiryHandler;
+
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+
+    private final List<ArrayDeque<Timeout<T>>[]> levels = new ArrayList<>();
+
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis, Consumer<T> expiryHandler){
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.bitsPerLevel = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.expiryHandler = expiryHandler;
+        this.currentTick = startMillis / tickMillis;
+        this.levels.add(newLevel());
+    }
+
+    public void schedule(T item, long deadlineMillis){
+        this.pending.add(new Timeout<>(item, Math.ceilDiv(deadlineMillis, this.tickMillis)));
+    }
+
+    public void advance(long nowMillis){
+        drainPending();
+
+        long targetTick = nowMillis / this.tickMillis;
+        while (this.currentTick < targetTick) {
+            this.currentTick++;
+            for (int level = this.levels.size() - 1; level > 0; level--) {
+                if ((this.currentTick & ((1L << (level * this.bitsPerLevel)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            expireBucket(this.levels.get(0)[(int) (this.currentTick & this.mask)]);
+        }
+    }
+
+    private void drainPending(){
+        Timeout<T> timeout;
+        while ((timeout = this.pending.poll()) != null) {
+            place(timeout);
+        }
+    }
+
+    private void place(Timeout<T> timeout){
+        long delta = timeout.deadlineTick - this.currentTick;
+        if (delta <= 0) {
+            this.expiryHandler.accept(timeout.item);
+            return;
+        }
+
+        int level = 0;
+        while (level < 63 / this.bitsPerLevel && delta >= (1L << ((level + 1) * this.bitsPerLevel))) {
+            level++;
+        }
+        while (this.levels.size() <= level) {
+            this.levels.add(newLevel());
+        }
+
+        int slot = (int) ((timeout.deadlineTick >>> (level * this.bitsPerLevel)) & this.mask);
+        this.levels.get(level)[slot].add(timeout);
+    }
+
+    private void cascade(int level){
+        ArrayDeque<Timeout<T>> bucket = this.levels.get(level)[
+                (int) ((this.currentTick >>> (level * this.bitsPerLevel)) & this.mask)];
+        Timeout<T> timeout;
+        while ((timeout = bucket.poll()) != null) {
+            place(timeout);
+        }
+    }
+
+    private void expireBucket(ArrayDeque<Timeout<T>> bucket){
+        Timeout<T> timeout;
+        while ((timeout = bucket.poll()) != null) {
+            this.expiryHandler.accept(timeout.item);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArrayDeque<Timeout<T>>[] newLevel(){
+        ArrayDeque<Timeout<T>>[] buckets = new ArrayDeque[this.wheelSize];
+        for (int i = 0; i < this.wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        return buckets;
+    }
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+}
@@ -0,0 +1,52 @@
+package ru.stroy1click.confirmationcode.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Потоковый разбор ответа user-service в UserProjection. Тело читается прямо из потока ответа,
+ * без промежуточной строки, дерева JsonNode и полного UserDto. Лишние поля (в том числе вложенные объекты)
+ * пропускаются, поэтому разбор работает и со старым user-service, который не поддерживает параметр fields.
+ * Объект или массив на месте нужного поля тоже пропускается. Без emailConfirmed разбор завершается ошибкой:
+ * по этому полю сервис решает, можно ли отправлять код.
+ */
+public class UserProjectionParser {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    public static UserProjection parse(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "User object expected");
+            }
+
+            String email = null;
+            Boolean emailConfirmed = null;
+            String firstName = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!value.isScalarValue()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (field) {
+                    case "email" -> email = parser.getValueAsString();
+                    case "emailConfirmed" -> emailConfirmed = value == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean();
+                    case "firstName" -> firstName = parser.getValueAsString();
+                    default -> { }
+                }
+            }
+            if (emailConfirmed == null) {
+                throw new JsonParseException(parser, "User field emailConfirmed is missing or not a boolean");
+            }
+            return new UserProjection(email, emailConfirmed, firstName);
+        }
+    }
+}
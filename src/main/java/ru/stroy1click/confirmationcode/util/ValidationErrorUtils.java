@@ -3,6 +3,7 @@ package ru.stroy1click.confirmationcode.util;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.validation.FieldError;
@@ -24,21 +25,28 @@ public class ValidationErrorUtils {
     }
 
     public static void validateStatus(ClientHttpResponse response) throws IOException {
-        String errorBody = extractErrorDetail(response);
-        HttpStatus httpStatus = HttpStatus.resolve(response.getStatusCode().value());
+        throw toException(response.getStatusCode(), response.getBody().readAllBytes());
+    }
+
+    /**
+     * Сопоставляет ответ внешнего сервиса с ошибкой исключению этого сервиса.
+     * Используется и RestClient'ами (validateStatus), и WebClient'ами профиля reactive, которые уже прочитали тело ответа.
+     */
+    public static RuntimeException toException(HttpStatusCode statusCode, byte[] body) {
+        String errorBody = extractErrorDetail(body);
+        HttpStatus httpStatus = HttpStatus.resolve(statusCode.value());
 
-        if (httpStatus == null)  throw new RuntimeException("Unknown HTTP status: " + response.getStatusCode().value());
+        if (httpStatus == null) return new RuntimeException("Unknown HTTP status: " + statusCode.value());
 
         if (httpStatus.is4xxClientError()) {
-            throwOnUserError(httpStatus, errorBody);
+            return onUserError(httpStatus, errorBody);
         } else {
-            throwOnServerError(httpStatus);
+            return onServerError(httpStatus);
         }
     }
 
-    private static String extractErrorDetail(ClientHttpResponse response) {
+    private static String extractErrorDetail(byte[] bodyBytes) {
         try {
-            byte[] bodyBytes = response.getBody().readAllBytes();
             if (bodyBytes.length == 0) throw new RuntimeException("bodyBytes length is 0");
 
             ProblemDetail problem = objectMapper.readValue(bodyBytes, ProblemDetail.class);
@@ -50,20 +58,20 @@ public class ValidationErrorUtils {
         }
     }
 
-    private static void throwOnServerError(HttpStatus httpStatus){
-        switch (httpStatus){
-            case SERVICE_UNAVAILABLE -> throw new ServiceUnavailableException();
-            case INTERNAL_SERVER_ERROR -> throw new ServiceErrorResponseException();
-            default -> throw new RuntimeException("Unexpected status code: " + httpStatus.value());
+    private static RuntimeException onServerError(HttpStatus httpStatus){
+        return switch (httpStatus){
+            case SERVICE_UNAVAILABLE -> new ServiceUnavailableException();
+            case INTERNAL_SERVER_ERROR -> new ServiceErrorResponseException();
+            default -> new RuntimeException("Unexpected status code: " + httpStatus.value());
 
-        }
+        };
     }
 
-    private static void throwOnUserError(HttpStatus httpStatus, String errorMessage){
-        switch (httpStatus){
-            case NOT_FOUND -> throw new NotFoundException(errorMessage);
-            case BAD_REQUEST -> throw new ValidationException(errorMessage);
-            default -> throw new RuntimeException("Unexpected status code: " + httpStatus.value());
-        }
+    private static RuntimeException onUserError(HttpStatus httpStatus, String errorMessage){
+        return switch (httpStatus){
+            case NOT_FOUND -> new NotFoundException(errorMessage);
+            case BAD_REQUEST -> new ValidationException(errorMessage);
+            default -> new RuntimeException("Unexpected status code: " + httpStatus.value());
+        };
     }
 }
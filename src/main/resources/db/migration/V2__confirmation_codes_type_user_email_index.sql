@@ -0,0 +1,10 @@
+-- до появления ограничения дубликаты по (type, user_email) могли появиться из-за гонки,
+-- оставляем только самый свежий код
+delete from confirmation_code.confirmation_codes c
+    using confirmation_code.confirmation_codes newer
+where c.type = newer.type
+  and c.user_email = newer.user_email
+  and c.id < newer.id;
+
+alter table confirmation_code.confirmation_codes
+    add constraint confirmation_codes_type_user_email_key unique (type, user_email);
@@ -0,0 +1,2 @@
+create index if not exists confirmation_codes_expiration_date_idx
+    on confirmation_code.confirmation_codes (expiration_date);
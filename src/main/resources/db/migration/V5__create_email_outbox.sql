@@ -0,0 +1,13 @@
+create table if not exists confirmation_code.email_outbox(
+    id bigint generated by default as identity primary key ,
+    payload text not null ,
+    status varchar not null ,
+    attempts int not null default 0 ,
+    next_attempt_at timestamp not null ,
+    last_error varchar ,
+    created_at timestamp not null
+);
+
+create index if not exists email_outbox_pending_next_attempt_at_idx
+    on confirmation_code.email_outbox (next_attempt_at)
+    where status = 'PENDING';
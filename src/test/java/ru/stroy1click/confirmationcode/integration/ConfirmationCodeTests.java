@@ -7,19 +7,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.stroy1click.confirmationcode.client.AuthClient;
 import ru.stroy1click.confirmationcode.client.EmailClient;
 import ru.stroy1click.confirmationcode.client.UserClient;
-import ru.stroy1click.confirmationcode.dto.UserDto;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
 import ru.stroy1click.confirmationcode.model.*;
 
+import javax.sql.DataSource;
+
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @Import({TestcontainersConfiguration.class})
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -28,6 +31,9 @@ class ConfirmationCodeTests {
     @Autowired
     private TestRestTemplate testRestTemplate;
 
+    @Autowired
+    private DataSource dataSource;
+
     @MockitoBean
     private EmailClient emailClient;
 
@@ -39,19 +45,11 @@ class ConfirmationCodeTests {
 
     @Test
     public void create_ValidUser_CreatesConfirmationCode() {
-        UserDto userDto = UserDto.builder()
-                .id(1L)
-                .firstName("Ryan")
-                .lastName("Thompson")
-                .email("rayan_thompson@gmail.com")
-                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        UserProjection user = new UserProjection("rayan_thompson@gmail.com", false, "Ryan");
         HttpEntity<CreateConfirmationCodeRequest> httpEntity = new HttpEntity<>(new CreateConfirmationCodeRequest(Type.EMAIL,
                 "rayan_thompson@gmail.com"));
 
-        when(this.userClient.getByEmail("rayan_thompson@gmail.com")).thenReturn(userDto);
+        when(this.userClient.getByEmail("rayan_thompson@gmail.com")).thenReturn(user);
         doNothing().when(this.emailClient).sendEmail(any(SendEmailRequest.class));
 
         ResponseEntity<String> responseEntity = this.testRestTemplate.exchange(
@@ -64,22 +62,16 @@ class ConfirmationCodeTests {
         System.out.println(responseEntity);
         Assertions.assertTrue(responseEntity.getStatusCode().is2xxSuccessful());
         Assertions.assertEquals("Код подтверждения успешно отправлен на электронную почту", responseEntity.getBody());
+        verify(this.emailClient, timeout(5_000)).sendEmail(argThat(request ->
+                "rayan_thompson@gmail.com".equals(request.getUser().getEmail())));
     }
 
     @Test
     public void confirmEmail_ValidCode_ConfirmsEmail() {
-        UserDto userDto = UserDto.builder()
-                .id(2L)
-                .firstName("Jeff")
-                .lastName("Bezos")
-                .email("jeffbezos@gmail.com")
-                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        UserProjection user = new UserProjection("jeffbezos@gmail.com", false, "Jeff");
         HttpEntity<CodeVerificationRequest> httpEntity = new HttpEntity<>(new CodeVerificationRequest("jeffbezos@gmail.com", 1_234_567));
 
-        when(this.userClient.getByEmail("jeffbezos@gmail.com")).thenReturn(userDto);
+        when(this.userClient.getByEmail("jeffbezos@gmail.com")).thenReturn(user);
 
         ResponseEntity<String> responseEntity = this.testRestTemplate.exchange(
                 "/api/v1/confirmation-codes/email/verify",
@@ -96,20 +88,12 @@ class ConfirmationCodeTests {
 
     @Test
     public void recreate_ExistingCode_RegeneratesConfirmationCode() {
-        UserDto userDto = UserDto.builder()
-                .id(3L)
-                .firstName("Donald")
-                .lastName("Trump")
-                .email("donaldtrump@gmail.com")
-                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        UserProjection user = new UserProjection("donaldtrump@gmail.com", false, "Donald");
         HttpEntity<CreateConfirmationCodeRequest> httpEntity = new HttpEntity<>(new CreateConfirmationCodeRequest(Type.EMAIL,
                 "donaldtrump@gmail.com"));
 
         doNothing().when(this.emailClient).sendEmail(any(SendEmailRequest.class));
-        when(this.userClient.getByEmail("donaldtrump@gmail.com")).thenReturn(userDto);
+        when(this.userClient.getByEmail("donaldtrump@gmail.com")).thenReturn(user);
 
         ResponseEntity<String> responseEntity = this.testRestTemplate.exchange(
                 "/api/v1/confirmation-codes/regeneration",
@@ -126,20 +110,12 @@ class ConfirmationCodeTests {
 
     @Test
     public void updatePassword_ValidCodeAndPasswords_UpdatesPassword() {
-        UserDto userDto = UserDto.builder()
-                .id(4L)
-                .firstName("Pavel")
-                .lastName("Durov")
-                .email("paveldurovtg@gmail.com")
-                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        UserProjection user = new UserProjection("paveldurovtg@gmail.com", false, "Pavel");
         HttpEntity<UpdatePasswordRequest> httpEntity = new HttpEntity<>(new UpdatePasswordRequest("12345678", "12345678",
                 new CodeVerificationRequest("paveldurovtg@gmail.com", 1_234_567)));
 
         doNothing().when(this.authClient).logoutOnAllDevices(anyString(), anyString());
-        when(this.userClient.getByEmail("paveldurovtg@gmail.com")).thenReturn(userDto);
+        when(this.userClient.getByEmail("paveldurovtg@gmail.com")).thenReturn(user);
 
         ResponseEntity<String> responseEntity = this.testRestTemplate.exchange(
                 "/api/v1/confirmation-codes/password-reset",
@@ -172,19 +148,11 @@ class ConfirmationCodeTests {
 
     @Test
     public void confirmEmail_InvalidCode_ReturnsError() {
-        UserDto userDto = UserDto.builder()
-                .id(6L)
-                .firstName("Tom")
-                .lastName("Holland")
-                .email("tomholland@gmail.com")
-                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        UserProjection user = new UserProjection("tomholland@gmail.com", false, "Tom");
 
         HttpEntity<CodeVerificationRequest> httpEntity = new HttpEntity<>(new CodeVerificationRequest("tomholland@gmail.com", 1111111));
 
-        when(this.userClient.getByEmail("tomholland@gmail.com")).thenReturn(userDto);
+        when(this.userClient.getByEmail("tomholland@gmail.com")).thenReturn(user);
 
         ResponseEntity<ProblemDetail> responseEntity = this.testRestTemplate.exchange(
                 "/api/v1/confirmation-codes/email/verify",
@@ -199,20 +167,12 @@ class ConfirmationCodeTests {
 
     @Test
     public void updatePassword_PasswordsDoNotMatch_ReturnsError() {
-        UserDto userDto = UserDto.builder()
-                .id(8L)
-                .firstName("Ryan")
-                .lastName("Gosling")
-                .email("ryangosling@gmail.com")
-                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        UserProjection user = new UserProjection("ryangosling@gmail.com", false, "Ryan");
 
         HttpEntity<UpdatePasswordRequest> httpEntity = new HttpEntity<>(new UpdatePasswordRequest("12345678", "87654321",
                 new CodeVerificationRequest("ryangosling@gmail.com", 1_234_567)));
 
-        when(this.userClient.getByEmail("ryangosling@gmail.com")).thenReturn(userDto);
+        when(this.userClient.getByEmail("ryangosling@gmail.com")).thenReturn(user);
 
         ResponseEntity<ProblemDetail> responseEntity = this.testRestTemplate.exchange(
                 "/api/v1/confirmation-codes/password-reset",
@@ -227,19 +187,11 @@ class ConfirmationCodeTests {
 
     @Test
     public void recreate_NoExistingCode_ReturnsError() {
-        UserDto userDto = UserDto.builder()
-                .id(7L)
-                .firstName("Toby")
-                .lastName("Macgyver")
-                .email("tobymacgyver@gmail.com")
-                .password("$2a$12$5AvRdljjFvz1gJtVioGOJ./tAV8KHjln/fvKjrRXMAUxxqjYN4Vpi")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        UserProjection user = new UserProjection("tobymacgyver@gmail.com", false, "Toby");
         HttpEntity<CreateConfirmationCodeRequest> httpEntity = new HttpEntity<>(new CreateConfirmationCodeRequest(Type.EMAIL,
                 "tobymacgyver@gmail.com"));
 
-        when(this.userClient.getByEmail("tobymacgyver@gmail.com")).thenReturn(userDto);
+        when(this.userClient.getByEmail("tobymacgyver@gmail.com")).thenReturn(user);
 
         ResponseEntity<ProblemDetail> responseEntity = this.testRestTemplate.exchange(
                 "/api/v1/confirmation-codes/regeneration",
@@ -254,4 +206,94 @@ class ConfirmationCodeTests {
                 responseEntity.getBody().getDetail());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void create_ValidUser_HoldsNoConnectionDuringRemoteCall() {
+        UserProjection user = new UserProjection("billgates@gmail.com", false, "Bill");
+        HttpEntity<CreateConfirmationCodeRequest> httpEntity = new HttpEntity<>(new CreateConfirmationCodeRequest(Type.EMAIL,
+                "billgates@gmail.com"));
+
+        when(this.userClient.getByEmail("billgates@gmail.com")).thenAnswer(invocation -> {
+            assertNoTransactionOrConnection();
+            return user;
+        });
+
+        ResponseEntity<String> responseEntity = this.testRestTemplate.exchange(
+                "/api/v1/confirmation-codes",
+                HttpMethod.POST,
+                httpEntity,
+                String.class
+        );
+
+        Assertions.assertTrue(responseEntity.getStatusCode().is2xxSuccessful());
+    }
+
+    @Test
+    public void confirmEmail_ValidCode_HoldsNoConnectionDuringRemoteCall() {
+        HttpEntity<CodeVerificationRequest> httpEntity = new HttpEntity<>(new CodeVerificationRequest("elonmusk@gmail.com", 1_234_567));
+
+        doAnswer(invocation -> {
+            assertNoTransactionOrConnection();
+            return null;
+        }).when(this.userClient).updateEmailConfirmedStatus(any(ConfirmEmailRequest.class));
+
+        ResponseEntity<String> responseEntity = this.testRestTemplate.exchange(
+                "/api/v1/confirmation-codes/email/verify",
+                HttpMethod.POST,
+                httpEntity,
+                String.class
+        );
+
+        Assertions.assertTrue(responseEntity.getStatusCode().is2xxSuccessful());
+        verify(this.userClient).updateEmailConfirmedStatus(new ConfirmEmailRequest("elonmusk@gmail.com"));
+    }
+
+    /**
+     * Вызывается из заглушки внешнего сервиса: на потоке запроса не должно быть ни транзакции,
+     * ни привязанного к нему соединения из пула.
+     */
+    private void assertNoTransactionOrConnection() {
+        Assertions.assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+        Assertions.assertFalse(TransactionSynchronizationManager.hasResource(this.dataSource));
+    }
+
+    @Test
+    public void create_AcceptLanguageEnglish_ReturnsEnglishMessage() {
+        UserProjection user = new UserProjection("english.speaker@gmail.com", false, "John");
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_LANGUAGE, "en-US,en;q=0.9");
+        HttpEntity<CreateConfirmationCodeRequest> httpEntity = new HttpEntity<>(new CreateConfirmationCodeRequest(Type.EMAIL,
+                "english.speaker@gmail.com"), headers);
+
+        when(this.userClient.getByEmail("english.speaker@gmail.com")).thenReturn(user);
+
+        ResponseEntity<String> responseEntity = this.testRestTemplate.exchange(
+                "/api/v1/confirmation-codes",
+                HttpMethod.POST,
+                httpEntity,
+                String.class
+        );
+
+        Assertions.assertTrue(responseEntity.getStatusCode().is2xxSuccessful());
+        Assertions.assertEquals("The confirmation code has been sent to your email", responseEntity.getBody());
+    }
+
+    @Test
+    public void confirmEmail_UnknownCodeWithAcceptLanguageEnglish_ReturnsEnglishProblemDetail() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_LANGUAGE, "en");
+        HttpEntity<CodeVerificationRequest> httpEntity = new HttpEntity<>(
+                new CodeVerificationRequest("no.code.english@gmail.com", 1_234_567), headers);
+
+        ResponseEntity<ProblemDetail> responseEntity = this.testRestTemplate.exchange(
+                "/api/v1/confirmation-codes/email/verify",
+                HttpMethod.POST,
+                httpEntity,
+                ProblemDetail.class
+        );
+
+        Assertions.assertEquals(404, responseEntity.getStatusCode().value());
+        Assertions.assertEquals("Not found", responseEntity.getBody().getTitle());
+        Assertions.assertEquals("Confirmation code not found", responseEntity.getBody().getDetail());
+    }
+
+}
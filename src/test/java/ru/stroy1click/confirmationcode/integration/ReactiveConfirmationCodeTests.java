@@ -0,0 +1,228 @@
+package ru.stroy1click.confirmationcode.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.client.EmailClient;
+import ru.stroy1click.confirmationcode.client.ReactiveAuthClient;
+import ru.stroy1click.confirmationcode.client.ReactiveUserClient;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.model.*;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Сценарии ConfirmationCodeTests на профиле reactive (WebFlux, R2DBC, WebClient).
+ */
+@ActiveProfiles("reactive")
+@Import({TestcontainersConfiguration.class})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+class ReactiveConfirmationCodeTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private EmailClient emailClient;
+
+    @MockitoBean
+    private ReactiveAuthClient authClient;
+
+    @MockitoBean
+    private ReactiveUserClient userClient;
+
+    @Test
+    public void create_ValidUser_CreatesConfirmationCode() {
+        UserProjection user = user("reactive.rayan_thompson@gmail.com");
+
+        when(this.userClient.getByEmail("reactive.rayan_thompson@gmail.com")).thenReturn(Mono.just(user));
+
+        String body = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes")
+                .bodyValue(new CreateConfirmationCodeRequest(Type.EMAIL, "reactive.rayan_thompson@gmail.com"))
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Код подтверждения успешно отправлен на электронную почту", body);
+        verify(this.emailClient, timeout(5_000)).sendEmail(argThat(request ->
+                "reactive.rayan_thompson@gmail.com".equals(request.getUser().getEmail())));
+    }
+
+    @Test
+    public void confirmEmail_ValidCode_ConfirmsEmail() {
+        when(this.userClient.updateEmailConfirmedStatus(any(ConfirmEmailRequest.class))).thenReturn(Mono.empty());
+
+        String body = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/email/verify")
+                .bodyValue(new CodeVerificationRequest("reactive.jeffbezos@gmail.com", 1_234_567))
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Электронная почта подтверждена", body);
+        verify(this.userClient).updateEmailConfirmedStatus(argThat(request ->
+                "reactive.jeffbezos@gmail.com".equals(request.getEmail())));
+    }
+
+    @Test
+    public void recreate_ExistingCode_RegeneratesConfirmationCode() {
+        UserProjection user = user("reactive.donaldtrump@gmail.com");
+
+        when(this.userClient.getByEmail("reactive.donaldtrump@gmail.com")).thenReturn(Mono.just(user));
+
+        String body = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/regeneration")
+                .bodyValue(new CreateConfirmationCodeRequest(Type.EMAIL, "reactive.donaldtrump@gmail.com"))
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Код подтверждения успешно отправлен на электронную почту", body);
+    }
+
+    @Test
+    public void updatePassword_ValidCodeAndPasswords_UpdatesPassword() {
+        when(this.authClient.logoutOnAllDevices(anyString(), anyString())).thenReturn(Mono.empty());
+        when(this.userClient.updatePassword(any(UserServiceUpdatePasswordRequest.class))).thenReturn(Mono.empty());
+
+        String body = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/password-reset")
+                .bodyValue(new UpdatePasswordRequest("12345678", "12345678",
+                        new CodeVerificationRequest("reactive.paveldurovtg@gmail.com", 1_234_567)))
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Пароль успешно обновлен", body);
+        verify(this.authClient).logoutOnAllDevices(eq("reactive.paveldurovtg@gmail.com"), anyString());
+    }
+
+    @Test
+    public void confirmEmail_WhenUserServiceFails_RestoresCode() {
+        when(this.userClient.updateEmailConfirmedStatus(any(ConfirmEmailRequest.class)))
+                .thenReturn(Mono.error(new ServiceUnavailableException()))
+                .thenReturn(Mono.empty());
+        CodeVerificationRequest request = new CodeVerificationRequest("reactive.mattdamon@gmail.com", 1_234_567);
+
+        this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/email/verify")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/email/verify")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        verify(this.userClient, times(2)).updateEmailConfirmedStatus(any(ConfirmEmailRequest.class));
+    }
+
+    @Test
+    public void updatePassword_WhenAuthServiceFails_RestoresCode() {
+        when(this.authClient.logoutOnAllDevices(eq("reactive.keanureeves@gmail.com"), anyString()))
+                .thenReturn(Mono.error(new ServiceUnavailableException()))
+                .thenReturn(Mono.empty());
+        when(this.userClient.updatePassword(any(UserServiceUpdatePasswordRequest.class))).thenReturn(Mono.empty());
+        UpdatePasswordRequest request = new UpdatePasswordRequest("12345678", "12345678",
+                new CodeVerificationRequest("reactive.keanureeves@gmail.com", 1_234_567));
+
+        this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/password-reset")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        String body = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/password-reset")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Пароль успешно обновлен", body);
+    }
+
+    @Test
+    public void create_InvalidEmail_ReturnsValidationError() {
+        ProblemDetail problemDetail = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes")
+                .bodyValue(new CreateConfirmationCodeRequest(Type.EMAIL, "invalid-email"))
+                .exchange()
+                .expectStatus().is4xxClientError()
+                .expectBody(ProblemDetail.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Электронная почта должна быть валидной", problemDetail.getDetail());
+    }
+
+    @Test
+    public void confirmEmail_InvalidCode_ReturnsError() {
+        ProblemDetail problemDetail = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/email/verify")
+                .bodyValue(new CodeVerificationRequest("reactive.tomholland@gmail.com", 1111111))
+                .exchange()
+                .expectStatus().is4xxClientError()
+                .expectBody(ProblemDetail.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Код подтверждения не валиден(неправильный код или срок годности истёк)", problemDetail.getDetail());
+    }
+
+    @Test
+    public void updatePassword_PasswordsDoNotMatch_ReturnsError() {
+        this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/password-reset")
+                .bodyValue(new UpdatePasswordRequest("12345678", "87654321",
+                        new CodeVerificationRequest("reactive.ryangosling@gmail.com", 1_234_567)))
+                .exchange()
+                .expectStatus().is4xxClientError();
+    }
+
+    @Test
+    public void recreate_NoExistingCode_ReturnsError() {
+        UserProjection user = user("reactive.tobymacgyver@gmail.com");
+
+        when(this.userClient.getByEmail("reactive.tobymacgyver@gmail.com")).thenReturn(Mono.just(user));
+
+        ProblemDetail problemDetail = this.webTestClient.post()
+                .uri("/api/v1/confirmation-codes/regeneration")
+                .bodyValue(new CreateConfirmationCodeRequest(Type.EMAIL, "reactive.tobymacgyver@gmail.com"))
+                .exchange()
+                .expectStatus().is4xxClientError()
+                .expectBody(ProblemDetail.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals("Вы не можете пересоздать код подтверждения, так как код не был ещё создан. Создайте код подтверждения",
+                problemDetail.getDetail());
+    }
+
+    private static UserProjection user(String email){
+        return new UserProjection(email, false, "Ryan");
+    }
+}
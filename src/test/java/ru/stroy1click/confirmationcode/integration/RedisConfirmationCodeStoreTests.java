@@ -0,0 +1,88 @@
+package ru.stroy1click.confirmationcode.integration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+import ru.stroy1click.confirmationcode.model.ConsumeResult;
+import ru.stroy1click.confirmationcode.model.Type;
+import ru.stroy1click.confirmationcode.store.impl.RedisConfirmationCodeStore;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+/**
+ * Проверка Redis-хранилища на встроенном сервере Redis, без Docker.
+ */
+class RedisConfirmationCodeStoreTests {
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    private RedisConfirmationCodeStore store;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        this.store = new RedisConfirmationCodeStore(redisTemplate, "confirmation-code:");
+    }
+
+    @Test
+    public void saveIfAbsent_WhenCodeExists_ReturnsFalse() {
+        Assertions.assertTrue(this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofHours(24)));
+        Assertions.assertFalse(this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 7654321, Duration.ofHours(24)));
+
+        Long ttl = redisTemplate.getExpire("confirmation-code:EMAIL:john.doe@example.com");
+        Assertions.assertNotNull(ttl);
+        Assertions.assertTrue(ttl > 0 && ttl <= Duration.ofHours(24).toSeconds());
+    }
+
+    @Test
+    public void replaceIfPresent_ReplacesOnlyExistingCode() {
+        Assertions.assertFalse(this.store.replaceIfPresent(Type.PASSWORD, "john.doe@example.com", 1234567, Duration.ofHours(24)));
+
+        this.store.saveIfAbsent(Type.PASSWORD, "john.doe@example.com", 1234567, Duration.ofHours(24));
+        Assertions.assertTrue(this.store.replaceIfPresent(Type.PASSWORD, "john.doe@example.com", 7654321, Duration.ofHours(24)));
+
+        Assertions.assertEquals(ConsumeResult.INVALID, this.store.consume(Type.PASSWORD, "john.doe@example.com", 1234567));
+        Assertions.assertEquals(ConsumeResult.CONSUMED, this.store.consume(Type.PASSWORD, "john.doe@example.com", 7654321));
+    }
+
+    @Test
+    public void consume_WrongCodeKeepsKey_ValidCodeDeletesIt() {
+        this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofHours(24));
+
+        Assertions.assertEquals(ConsumeResult.INVALID, this.store.consume(Type.EMAIL, "john.doe@example.com", 7654321));
+        Assertions.assertEquals(ConsumeResult.CONSUMED, this.store.consume(Type.EMAIL, "john.doe@example.com", 1234567));
+        Assertions.assertEquals(ConsumeResult.NOT_FOUND, this.store.consume(Type.EMAIL, "john.doe@example.com", 1234567));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.stroy1click.confirmationcode.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.stroy1click.confirmationcode.integration.TestcontainersConfiguration;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Нагрузочный тест: приложение целиком (Postgres в Testcontainers, заглушки внешних сервисов в процессе)
+ * под смешанным потоком create / recreate / verify / password-reset с заданной частотой.
+ * Не запускается обычной сборкой: mvn -Pload-test test -Dload.rps=500 -Dload.duration=PT2M
+ * Параметры: load.rps, load.duration, stub.latency, stub.jitter, stub.error-rate;
+ * режим виртуальных потоков - -Dspring.threads.virtual.enabled=true.
+ */
+@Tag("load")
+@Import({TestcontainersConfiguration.class})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "resilience4j.ratelimiter.instances.confirmationCodeLimiter.limitForPeriod=1000000",
+        "confirmation-code.rate-limit.limits.create.ip.capacity=100000000",
+        "confirmation-code.rate-limit.limits.recreate.ip.capacity=100000000",
+        "confirmation-code.rate-limit.limits.verify-email.ip.capacity=100000000",
+        "confirmation-code.rate-limit.limits.recreate.email.capacity=100000000",
+        "confirmation-code.outbox.poll-interval=200ms"
+})
+class ConfirmationCodeLoadTest {
+
+    private static final DownstreamStubServer STUBS;
+
+    static {
+        try {
+            STUBS = new DownstreamStubServer(
+                    Duration.parse(System.getProperty("stub.latency", "PT0.02S")),
+                    Duration.parse(System.getProperty("stub.jitter", "PT0.01S")),
+                    Double.parseDouble(System.getProperty("stub.error-rate", "0.01")));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final ConfirmationCodeScenario scenario = new ConfirmationCodeScenario(STUBS, () -> this.port);
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void downstreamUrls(DynamicPropertyRegistry registry) {
+        registry.add("url.user", () -> STUBS.baseUrl() + "/users");
+        registry.add("url.auth", () -> STUBS.baseUrl() + "/auth");
+        registry.add("url.email", () -> STUBS.baseUrl() + "/emails");
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        STUBS.close();
+    }
+
+    @Test
+    void mixedTraffic_AtTargetRps() throws InterruptedException {
+        int rps = Integer.getInteger("load.rps", 200);
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT60S"));
+
+        LoadGenerator.Report report = new LoadGenerator().run(rps, duration, this.scenario::nextOperation);
+
+        System.out.printf("%nload test: %d rps for %s, virtual threads %s%n%s%n", rps, duration,
+                System.getProperty("spring.threads.virtual.enabled", "false"), report.format());
+        Assertions.assertTrue(report.totalRequests() > 0);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.stroy1click.confirmationcode.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Смешанный поток запросов нагрузочных тестов: create / recreate / verify / password-reset.
+ * Коды для подтверждения берутся из писем, которые приняла email-заглушка DownstreamStubServer.
+ */
+public class ConfirmationCodeScenario {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    private final ConcurrentLinkedDeque<String> createdEmails = new ConcurrentLinkedDeque<>();
+
+    private final DownstreamStubServer stubs;
+
+    private final IntSupplier port;
+
+    /**
+     * @param port порт приложения; поставщик, потому что в тестах порт известен только после старта контекста.
+     */
+    public ConfirmationCodeScenario(DownstreamStubServer stubs, IntSupplier port){
+        this.stubs = stubs;
+        this.port = port;
+    }
+
+    /**
+     * Смесь запросов: 35% создание кода почты, 15% создание кода сброса пароля, 10% пересоздание,
+     * 40% подтверждение уже доставленного кода (почты или пароля - по тому, какой код пришёл).
+     */
+    public LoadGenerator.Operation nextOperation(){
+        int dice = ThreadLocalRandom.current().nextInt(100);
+        if (dice < 35) return () -> create("EMAIL", "email-");
+        if (dice < 50) return () -> create("PASSWORD", "pwd-");
+        if (dice < 60) return this::recreate;
+        return this::consumeDelivered;
+    }
+
+    private LoadGenerator.Result create(String type, String prefix) throws Exception {
+        String email = prefix + this.emailSequence.incrementAndGet() + "@load.test";
+        int status = post("/api/v1/confirmation-codes", """
+                {"confirmationCodeType":"%s","email":"%s"}""".formatted(type, email));
+        if (status == 200 && "EMAIL".equals(type)) this.createdEmails.add(email);
+        return new LoadGenerator.Result("create", status);
+    }
+
+    private LoadGenerator.Result recreate() throws Exception {
+        String email = this.createdEmails.peekLast();
+        if (email == null) return create("EMAIL", "email-");
+
+        int status = post("/api/v1/confirmation-codes/regeneration", """
+                {"confirmationCodeType":"EMAIL","email":"%s"}""".formatted(email));
+        return new LoadGenerator.Result("recreate", status);
+    }
+
+    private LoadGenerator.Result consumeDelivered() throws Exception {
+        DownstreamStubServer.DeliveredCode delivered = this.stubs.pollDeliveredCode();
+        if (delivered == null) return create("EMAIL", "email-");
+
+        if (delivered.email().startsWith("pwd-")) {
+            int status = post("/api/v1/confirmation-codes/password-reset", """
+                    {"newPassword":"12345678","confirmPassword":"12345678",
+                     "codeVerificationRequest":{"email":"%s","code":%d}}""".formatted(delivered.email(), delivered.code()));
+            return new LoadGenerator.Result("password-reset", status);
+        }
+
+        this.createdEmails.remove(delivered.email());
+        int status = post("/api/v1/confirmation-codes/email/verify", """
+                {"email":"%s","code":%d}""".formatted(delivered.email(), delivered.code()));
+        return new LoadGenerator.Result("verify-email", status);
+    }
+
+    private int post(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port.getAsInt() + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return this.httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,146 @@
+package ru.stroy1click.confirmationcode.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Заглушки user-, auth- и email-service в одном HTTP-сервере на случайном порту.
+ * Для каждого ответа выдерживается задержка latency ± jitter, с вероятностью errorRate возвращается 503.
+ * Email-заглушка запоминает отправленные коды, чтобы нагрузочный сценарий мог их подтвердить.
+ */
+public class DownstreamStubServer implements AutoCloseable {
+
+    private static final byte[] UNAVAILABLE = """
+            {"type":"about:blank","title":"Service Unavailable","status":503,"detail":"stub error"}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Queue<DeliveredCode> deliveredCodes = new ConcurrentLinkedQueue<>();
+
+    private final HttpServer server;
+
+    private final Duration latency;
+
+    private final Duration jitter;
+
+    private final double errorRate;
+
+    public DownstreamStubServer(Duration latency, Duration jitter, double errorRate) throws IOException {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/api/v1/users", exchange -> respond(exchange, this::handleUser));
+        this.server.createContext("/api/v1/auth", exchange -> respond(exchange, ignored -> "ok".getBytes()));
+        this.server.createContext("/api/v1/emails", exchange -> respond(exchange, this::handleEmail));
+        this.server.start();
+    }
+
+    public String baseUrl(){
+        return "http://127.0.0.1:" + this.server.getAddress().getPort() + "/api/v1";
+    }
+
+    /**
+     * @return следующий доставленный email-service код или null, если новых писем нет.
+     */
+    public DeliveredCode pollDeliveredCode(){
+        return this.deliveredCodes.poll();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    private byte[] handleUser(HttpExchange exchange) throws IOException {
+        URI uri = exchange.getRequestURI();
+        if (!"GET".equals(exchange.getRequestMethod())) return "ok".getBytes();
+
+        String email = URLDecoder.decode(uri.getRawQuery().substring("email=".length()), StandardCharsets.UTF_8);
+        ObjectNode user = this.objectMapper.createObjectNode()
+                .put("id", Math.abs(email.hashCode()))
+                .put("firstName", "Load")
+                .put("lastName", "Test")
+                .put("email", email)
+                .put("emailConfirmed", false)
+                .put("role", "ROLE_USER");
+        return this.objectMapper.writeValueAsBytes(user);
+    }
+
+    private byte[] handleEmail(HttpExchange exchange) throws IOException {
+        JsonNode body = this.objectMapper.readTree(exchange.getRequestBody());
+        if (!exchange.getRequestURI().getPath().endsWith("/batch")) {
+            deliver(body);
+            return "ok".getBytes();
+        }
+
+        ArrayNode results = this.objectMapper.createArrayNode();
+        for (JsonNode item : body.get("items")) {
+            deliver(item);
+            results.addObject().put("id", item.get("id").asLong()).put("status", "SENT");
+        }
+        return this.objectMapper.writeValueAsBytes(this.objectMapper.createObjectNode().set("results", results));
+    }
+
+    private void deliver(JsonNode email){
+        this.deliveredCodes.add(new DeliveredCode(email.get("user").get("email").asText(), email.get("code").asInt()));
+    }
+
+    private void respond(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            sleep();
+            if (ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+                exchange.getResponseHeaders().add("Content-Type", "application/problem+json");
+                write(exchange, 503, UNAVAILABLE);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            write(exchange, 200, handler.handle(exchange));
+        }
+    }
+
+    private void sleep(){
+        long jitterNanos = this.jitter.toNanos();
+        long delay = this.latency.toNanos()
+                + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(-jitterNanos, jitterNanos + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(Duration.ofNanos(delay));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void write(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        byte[] handle(HttpExchange exchange) throws IOException;
+    }
+
+    public record DeliveredCode(String email, int code) {
+    }
+}
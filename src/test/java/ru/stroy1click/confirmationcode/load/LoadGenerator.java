@@ -0,0 +1,179 @@
+package ru.stroy1click.confirmationcode.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Генератор нагрузки с открытой моделью: запросы запускаются по расписанию с заданной частотой независимо от того,
+ * успели ли завершиться предыдущие. Латентность считается от запланированного момента старта,
+ * поэтому задержки очереди на стороне клиента не прячутся (coordinated omission).
+ * Закрытая модель (runConcurrent) держит заданное число запросов в полёте: каждый клиент отправляет
+ * следующий запрос сразу после ответа на предыдущий, латентность считается от фактического старта запроса.
+ */
+public class LoadGenerator {
+
+    /**
+     * Один запрос сценария. Возвращает имя эндпоинта и HTTP-статус ответа.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        Result execute() throws Exception;
+    }
+
+    public record Result(String endpoint, int status) {
+    }
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param rps целевая частота запросов.
+     * @param duration длительность прогона.
+     * @param nextOperation выбирает операцию для очередного запроса.
+     */
+    public Report run(int rps, Duration duration, Supplier<Operation> nextOperation) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long scheduled = start; scheduled < end; scheduled += intervalNanos) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                long intendedStart = scheduled;
+                Operation operation = nextOperation.get();
+                executor.execute(() -> record(intendedStart, operation));
+            }
+        }
+        return new Report(Duration.ofNanos(System.nanoTime() - start), new TreeMap<>(this.stats));
+    }
+
+    /**
+     * @param concurrency число запросов в полёте (клиентов, каждый в своём виртуальном потоке).
+     * @param duration длительность прогона; начатые к её концу запросы доводятся до ответа.
+     * @param nextOperation выбирает операцию для очередного запроса.
+     */
+    public Report runConcurrent(int concurrency, Duration duration, Supplier<Operation> nextOperation)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        record(System.nanoTime(), nextOperation.get());
+                    }
+                });
+            }
+        }
+        return new Report(Duration.ofNanos(System.nanoTime() - start), new TreeMap<>(this.stats));
+    }
+
+    private void record(long intendedStart, Operation operation){
+        Result result;
+        try {
+            result = operation.execute();
+        } catch (Exception e) {
+            result = new Result("client-error:" + e.getClass().getSimpleName(), -1);
+        }
+        this.stats.computeIfAbsent(result.endpoint(), k -> new EndpointStats())
+                .record(System.nanoTime() - intendedStart, result.status());
+    }
+
+    public static final class EndpointStats {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private void record(long latencyNanos, int status){
+            this.latencies.add(latencyNanos);
+            this.statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+        }
+
+        public long count(){
+            return this.latencies.size();
+        }
+
+        public long errors(){
+            return this.statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300)
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+
+        public Map<Integer, Long> statuses(){
+            Map<Integer, Long> statuses = new TreeMap<>();
+            this.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+            return statuses;
+        }
+
+        public long[] sortedLatencies(){
+            long[] sorted = this.latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    public record Report(Duration elapsed, Map<String, EndpointStats> endpoints) {
+
+        public long totalRequests(){
+            return this.endpoints.values().stream().mapToLong(EndpointStats::count).sum();
+        }
+
+        public long totalErrors(){
+            return this.endpoints.values().stream().mapToLong(EndpointStats::errors).sum();
+        }
+
+        public double throughput(){
+            return totalRequests() * 1000.0 / Math.max(1, this.elapsed.toMillis());
+        }
+
+        /**
+         * Перцентиль латентности по всем эндпоинтам, в миллисекундах.
+         */
+        public double percentile(double quantile){
+            long[] sorted = this.endpoints.values().stream()
+                    .flatMapToLong(stats -> Arrays.stream(stats.sortedLatencies()))
+                    .sorted()
+                    .toArray();
+            return percentile(sorted, quantile);
+        }
+
+        public String format(){
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format("elapsed %.1fs, %d requests, %.1f req/s, %d errors",
+                    this.elapsed.toMillis() / 1000.0, totalRequests(),
+                    totalRequests() * 1000.0 / Math.max(1, this.elapsed.toMillis()), totalErrors()));
+            lines.add(String.format("%-16s %8s %10s %10s %10s %10s  %s",
+                    "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "statuses"));
+            this.endpoints.forEach((endpoint, stats) -> {
+                long[] sorted = stats.sortedLatencies();
+                lines.add(String.format("%-16s %8d %10.1f %10.2f %10.2f %10.2f  %s",
+                        endpoint, stats.count(), stats.count() * 1000.0 / Math.max(1, this.elapsed.toMillis()),
+                        percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                        stats.statuses()));
+            });
+            return String.join(System.lineSeparator(), lines);
+        }
+
+        private static double percentile(long[] sorted, double quantile){
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.stroy1click.confirmationcode.load;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.stroy1click.confirmationcode.Stroy1ClickConfirmationCodeServiceApplication;
+import ru.stroy1click.confirmationcode.integration.TestcontainersConfiguration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сравнение платформенных и виртуальных потоков под закрытой нагрузкой: load.concurrency запросов в полёте
+ * (по умолчанию 1000, 5000 и 10000), каждый уровень - load.concurrency-duration в каждом режиме.
+ * Приложение поднимается дважды в одном JVM, с spring.threads.virtual.enabled=false и true,
+ * против одних и тех же Postgres и заглушек внешних сервисов. В конце печатается таблица режим x уровень
+ * (req/s, p50, p99, доля ошибок) и отношение пропускной способности virtual / platform.
+ * Не запускается обычной сборкой: mvn -Pload-test test -Dtest=ThreadModeLoadTest -Dload.concurrency=1000,10000
+ * Предел соединений Tomcat поднят до 20000 в обоих режимах, чтобы сравнивалась модель потоков, а не max-connections;
+ * для 10000 соединений клиенту и серверу нужен ulimit -n больше 20000.
+ */
+@Tag("load")
+class ThreadModeLoadTest {
+
+    private static final Duration WARM_UP = Duration.ofSeconds(10);
+
+    @Test
+    void concurrentClients_PlatformVsVirtualThreads() throws Exception {
+        int[] levels = Arrays.stream(System.getProperty("load.concurrency", "1000,5000,10000").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        Duration duration = Duration.parse(System.getProperty("load.concurrency-duration", "PT30S"));
+        Map<String, Map<Integer, LoadGenerator.Report>> reports = new LinkedHashMap<>();
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+        try (DownstreamStubServer stubs = new DownstreamStubServer(
+                Duration.parse(System.getProperty("stub.latency", "PT0.02S")),
+                Duration.parse(System.getProperty("stub.jitter", "PT0.01S")),
+                Double.parseDouble(System.getProperty("stub.error-rate", "0.01")))) {
+            for (boolean virtualThreads : new boolean[]{false, true}) {
+                ConfigurableApplicationContext context = start(stubs, virtualThreads);
+                contexts.add(context);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                ConfirmationCodeScenario scenario = new ConfirmationCodeScenario(stubs, () -> port);
+
+                new LoadGenerator().runConcurrent(levels[0], WARM_UP, scenario::nextOperation);
+                Map<Integer, LoadGenerator.Report> modeReports = new LinkedHashMap<>();
+                for (int concurrency : levels) {
+                    LoadGenerator.Report report = new LoadGenerator()
+                            .runConcurrent(concurrency, duration, scenario::nextOperation);
+                    System.out.printf("%nload test: %d in flight for %s, virtual threads %s%n%s%n",
+                            concurrency, duration, virtualThreads, report.format());
+                    modeReports.put(concurrency, report);
+                }
+                reports.put(virtualThreads ? "virtual" : "platform", modeReports);
+                // Web-сервер и планировщик останавливаются, чтобы не отнимать ресурсы у следующего режима.
+                // Контекст закрывается в конце: TestcontainersConfiguration останавливает контейнеры при закрытии.
+                context.stop();
+            }
+        } finally {
+            for (int i = contexts.size() - 1; i >= 0; i--) {
+                contexts.get(i).close();
+            }
+        }
+
+        System.out.printf("%n%s%n", compare(reports, levels));
+        reports.forEach((mode, modeReports) -> modeReports.forEach((concurrency, report) ->
+                Assertions.assertTrue(report.totalRequests() > 0, mode + " at " + concurrency + " made no requests")));
+    }
+
+    private static ConfigurableApplicationContext start(DownstreamStubServer stubs, boolean virtualThreads){
+        return new SpringApplicationBuilder(Stroy1ClickConfirmationCodeServiceApplication.class,
+                TestcontainersConfiguration.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=20000",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.jpa.show-sql=false",
+                        "resilience4j.ratelimiter.instances.confirmationCodeLimiter.limitForPeriod=1000000",
+                        "confirmation-code.rate-limit.limits.create.ip.capacity=100000000",
+                        "confirmation-code.rate-limit.limits.recreate.ip.capacity=100000000",
+                        "confirmation-code.rate-limit.limits.verify-email.ip.capacity=100000000",
+                        "confirmation-code.rate-limit.limits.recreate.email.capacity=100000000",
+                        "confirmation-code.outbox.poll-interval=200ms",
+                        "url.user=" + stubs.baseUrl() + "/users",
+                        "url.auth=" + stubs.baseUrl() + "/auth",
+                        "url.email=" + stubs.baseUrl() + "/emails")
+                .run();
+    }
+
+    private static String compare(Map<String, Map<Integer, LoadGenerator.Report>> reports, int[] levels){
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-10s %10s %10s %10s %10s %8s", "mode", "in flight", "req/s", "p50 ms", "p99 ms", "errors"));
+        reports.forEach((mode, modeReports) -> modeReports.forEach((concurrency, report) ->
+                lines.add(String.format("%-10s %10d %10.1f %10.2f %10.2f %7.2f%%", mode, concurrency,
+                        report.throughput(), report.percentile(0.50), report.percentile(0.99),
+                        report.totalErrors() * 100.0 / Math.max(1, report.totalRequests())))));
+        for (int concurrency : levels) {
+            LoadGenerator.Report platform = reports.get("platform").get(concurrency);
+            LoadGenerator.Report virtual = reports.get("virtual").get(concurrency);
+            lines.add(String.format("%d in flight: virtual / platform throughput %.2f, p99 %.2f",
+                    concurrency, virtual.throughput() / Math.max(0.001, platform.throughput()),
+                    virtual.percentile(0.99) / Math.max(0.001, platform.percentile(0.99))));
+        }
+        return String.join(System.lineSeparator(), lines);
+    }
+}
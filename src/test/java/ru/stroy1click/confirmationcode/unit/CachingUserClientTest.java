@@ -0,0 +1,57 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.stroy1click.confirmationcode.client.UserClient;
+import ru.stroy1click.confirmationcode.client.cache.CachingUserClient;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.model.ConfirmEmailRequest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingUserClientTest {
+
+    @Mock
+    private UserClient userClient;
+
+    private CachingUserClient cachingUserClient;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        this.cachingUserClient = new CachingUserClient(this.userClient, 100, Duration.ofSeconds(30),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void getByEmail_RepeatedCall_ServedFromCache() {
+        UserProjection user = new UserProjection("john.doe@example.com", false, "John");
+        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(user);
+
+        assertEquals(user, this.cachingUserClient.getByEmail("john.doe@example.com"));
+        assertEquals(user, this.cachingUserClient.getByEmail("john.doe@example.com"));
+
+        verify(this.userClient, times(1)).getByEmail("john.doe@example.com");
+    }
+
+    @Test
+    void updateEmailConfirmedStatus_WhenDelegateFails_InvalidatesCache() {
+        UserProjection user = new UserProjection("john.doe@example.com", false, "John");
+        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(user);
+        doThrow(new ServiceUnavailableException()).when(this.userClient).updateEmailConfirmedStatus(any());
+        this.cachingUserClient.getByEmail("john.doe@example.com");
+
+        assertThrows(ServiceUnavailableException.class, () -> this.cachingUserClient.updateEmailConfirmedStatus(
+                new ConfirmEmailRequest("john.doe@example.com")));
+        this.cachingUserClient.getByEmail("john.doe@example.com");
+
+        verify(this.userClient, times(2)).getByEmail("john.doe@example.com");
+    }
+}
@@ -0,0 +1,84 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.stroy1click.confirmationcode.generator.ConfirmationCodeGenerator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfirmationCodeGeneratorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConfirmationCodeGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.generator = new ConfirmationCodeGenerator(this.meterRegistry, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.generator.destroy();
+    }
+
+    @Test
+    void nextCode_BeyondBufferSize_StaysInRange() {
+        Set<Integer> codes = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            int code = this.generator.nextCode();
+            assertTrue(code >= ConfirmationCodeGenerator.MIN_CODE && code < ConfirmationCodeGenerator.MAX_CODE);
+            codes.add(code);
+        }
+
+        assertTrue(codes.size() > 900);
+    }
+
+    @Test
+    void nextCode_FromManyThreads_StaysInRange() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        int code = this.generator.nextCode();
+                        if (code < ConfirmationCodeGenerator.MIN_CODE || code >= ConfirmationCodeGenerator.MAX_CODE) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nextCode_AfterDestroy_FallsBackToSecureRandom() {
+        this.generator.destroy();
+
+        for (int i = 0; i < 20; i++) {
+            int code = this.generator.nextCode();
+            assertTrue(code >= ConfirmationCodeGenerator.MIN_CODE && code < ConfirmationCodeGenerator.MAX_CODE);
+        }
+
+        assertTrue(this.meterRegistry.get("confirmation_code.code_generator.fallback").counter().count() > 0);
+    }
+}
@@ -6,22 +6,22 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
-import org.springframework.context.MessageSource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.stroy1click.confirmationcode.client.AuthClient;
-import ru.stroy1click.confirmationcode.client.EmailClient;
 import ru.stroy1click.confirmationcode.client.UserClient;
-import ru.stroy1click.confirmationcode.dto.UserDto;
-import ru.stroy1click.confirmationcode.entity.ConfirmationCode;
-import ru.stroy1click.confirmationcode.exception.NotFoundException;
-import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.generator.ConfirmationCodeGenerator;
+import ru.stroy1click.confirmationcode.lockout.FailedAttemptGuard;
 import ru.stroy1click.confirmationcode.model.*;
-import ru.stroy1click.confirmationcode.repository.ConfirmationCodeRepository;
+import ru.stroy1click.confirmationcode.service.EmailOutboxService;
 import ru.stroy1click.confirmationcode.service.JwtService;
 import ru.stroy1click.confirmationcode.service.impl.ConfirmationCodeServiceImpl;
+import ru.stroy1click.confirmationcode.store.ConfirmationCodeStore;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.Random;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,7 +30,7 @@ import static org.mockito.Mockito.*;
 class ConfirmationCodeTest {
 
     @Mock
-    private ConfirmationCodeRepository confirmationCodeRepository;
+    private ConfirmationCodeStore confirmationCodeStore;
 
     @Mock
     private AuthClient authClient;
@@ -39,261 +39,288 @@ class ConfirmationCodeTest {
     private UserClient userClient;
 
     @Mock
-    private MessageSource messageSource;
+    private EmailOutboxService emailOutboxService;
 
     @Mock
-    private EmailClient emailClient;
+    private JwtService jwtService;
 
     @Mock
-    private JwtService jwtService;
+    private FailedAttemptGuard failedAttemptGuard;
+
+    @Mock
+    private ConfirmationCodeGenerator confirmationCodeGenerator;
 
     @Spy
-    private Random random = new Random();
+    private SyncTaskExecutor downstreamTaskExecutor = new SyncTaskExecutor();
+
+    @Mock
+    private TransactionOperations transactionOperations;
 
     @InjectMocks
     private ConfirmationCodeServiceImpl confirmationCodeService;
 
-    private UserDto userDto;
+    private UserProjection user;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(this.transactionOperations.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(this.confirmationCodeGenerator.nextCode()).thenReturn(1_234_567);
 
-        this.userDto = UserDto.builder()
-                .id(1L)
-                .firstName("John")
-                .lastName("Doe")
-                .email("john.doe@example.com")
-                .password("encoded_password")
-                .role(Role.ROLE_USER)
-                .emailConfirmed(false)
-                .build();
+        this.user = new UserProjection("john.doe@example.com", false, "John");
     }
 
     @Test
     void create_WhenNoExistingCode_CreatesNewCode() {
         CreateConfirmationCodeRequest request = new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com");
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1234567, LocalDateTime.now().plusHours(24), Type.EMAIL, "john.doe@example.com");
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(userDto);
-        when(this.confirmationCodeRepository.countByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com"))
-                .thenReturn(0);
-        when(this.confirmationCodeRepository.save(any(ConfirmationCode.class))).thenReturn(confirmationCode);
+        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.user);
+        when(this.confirmationCodeStore.saveIfAbsent(eq(Type.EMAIL), eq("john.doe@example.com"), anyInt(),
+                any(Duration.class))).thenReturn(true);
 
-        this.confirmationCodeService.create(request);
+        assertEquals(ConfirmationCodeOutcome.SENT, this.confirmationCodeService.create(request));
 
-        verify(this.confirmationCodeRepository).save(any(ConfirmationCode.class));
-        verify(this.emailClient).sendEmail(any(SendEmailRequest.class));
+        verify(this.confirmationCodeStore).saveIfAbsent(eq(Type.EMAIL), eq("john.doe@example.com"), eq(1_234_567),
+                any(Duration.class));
+        verify(this.emailOutboxService).enqueue(any(SendEmailRequest.class));
     }
 
     @Test
-    void create_WhenExistingCode_ThrowsValidationException() {
+    void create_WhenExistingCode_ReturnsAlreadySent() {
         CreateConfirmationCodeRequest request = new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com");
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.countByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com")).thenReturn(1);
-        when(this.messageSource.getMessage(eq("error.confirmation_code.already_sent"), any(), any()))
-                .thenReturn("Код подтверждения уже был отправлен на вашу почту");
+        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.user);
+        when(this.confirmationCodeStore.saveIfAbsent(eq(Type.EMAIL), eq("john.doe@example.com"), anyInt(),
+                any(Duration.class))).thenReturn(false);
 
-        ValidationException exception = assertThrows(ValidationException.class,
-                () -> this.confirmationCodeService.create(request));
-        assertEquals("Код подтверждения уже был отправлен на вашу почту", exception.getMessage());
+        assertEquals(ConfirmationCodeOutcome.ALREADY_SENT, this.confirmationCodeService.create(request));
 
-        verify(this.confirmationCodeRepository, never()).save(any());
+        verify(this.emailOutboxService, never()).enqueue(any());
     }
 
     @Test
-    void create_WhenEmailAlreadyConfirmed_ThrowsValidationException() {
-        this.userDto.setEmailConfirmed(true);
+    void create_WhenEmailAlreadyConfirmed_ReturnsEmailAlreadyConfirmed() {
+        this.user = new UserProjection("john.doe@example.com", true, "John");
         CreateConfirmationCodeRequest request = new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com");
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.messageSource.getMessage(eq("error.email.already_confirmed"), any(), any()))
-                .thenReturn("Почта уже была подтверждена");
+        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.user);
 
-        ValidationException exception = assertThrows(ValidationException.class,
-                () -> this.confirmationCodeService.create(request));
-        assertEquals("Почта уже была подтверждена", exception.getMessage());
+        assertEquals(ConfirmationCodeOutcome.EMAIL_ALREADY_CONFIRMED, this.confirmationCodeService.create(request));
 
-        verify(this.confirmationCodeRepository, never()).save(any());
+        verify(this.confirmationCodeStore, never()).saveIfAbsent(any(), anyString(), anyInt(), any());
     }
 
     @Test
     void recreate_WhenExistingCode_RegeneratesCode() {
         CreateConfirmationCodeRequest request = new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com");
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1234567, LocalDateTime.now().plusHours(24), Type.EMAIL, "john.doe@example.com");
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(userDto);
-        when(this.confirmationCodeRepository.countByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com")).thenReturn(1);
-        when(confirmationCodeRepository.save(any(ConfirmationCode.class))).thenReturn(confirmationCode);
+        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.user);
+        when(this.confirmationCodeStore.replaceIfPresent(eq(Type.EMAIL), eq("john.doe@example.com"), anyInt(),
+                any(Duration.class))).thenReturn(true);
 
         this.confirmationCodeService.recreate(request);
 
-        verify(this.confirmationCodeRepository).deleteByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com");
-        verify(this.confirmationCodeRepository).save(any(ConfirmationCode.class));
-        verify(this.emailClient).sendEmail(any(SendEmailRequest.class));
+        verify(this.confirmationCodeStore).replaceIfPresent(eq(Type.EMAIL), eq("john.doe@example.com"), anyInt(),
+                any(Duration.class));
+        verify(this.emailOutboxService).enqueue(any(SendEmailRequest.class));
     }
 
     @Test
-    void recreate_WhenNoExistingCode_ThrowsValidationException() {
+    void recreate_WhenNoExistingCode_ReturnsRecreateFailed() {
         CreateConfirmationCodeRequest request = new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com");
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.countByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com")).thenReturn(0);
-        when(this.messageSource.getMessage(eq("error.confirmation_code.recreate_failed"), any(), any()))
-                .thenReturn("Вы не можете пересоздать код подтверждения, так как письмо не было отправлено на вашу электронную почту");
-
-        ValidationException exception = assertThrows(ValidationException.class,
-                () -> this.confirmationCodeService.recreate(request));
-        assertEquals("Вы не можете пересоздать код подтверждения, так как письмо не было отправлено на вашу электронную почту",
-                exception.getMessage());
-
-        verify(this.confirmationCodeRepository, never()).deleteByTypeAndUserEmail(any(), anyString());
-        verify(this.confirmationCodeRepository, never()).save(any());
+        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.user);
+        when(this.confirmationCodeStore.replaceIfPresent(eq(Type.EMAIL), eq("john.doe@example.com"), anyInt(),
+                any(Duration.class))).thenReturn(false);
+
+        assertEquals(ConfirmationCodeOutcome.RECREATE_FAILED, this.confirmationCodeService.recreate(request));
+
+        verify(this.emailOutboxService, never()).enqueue(any());
     }
 
     @Test
     void confirmEmail_WithValidCode_ConfirmsEmail() {
         CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 1234567);
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1234567,
-                LocalDateTime.now().plusHours(1), Type.EMAIL, "john.doe@example.com");
 
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com"))
-                .thenReturn(Optional.of(confirmationCode));
+        when(this.confirmationCodeStore.consume(Type.EMAIL, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.CONSUMED);
 
-        this.confirmationCodeService.verifyEmail(request);
+        assertEquals(ConfirmationCodeOutcome.EMAIL_CONFIRMED, this.confirmationCodeService.verifyEmail(request));
 
         verify(this.userClient).updateEmailConfirmedStatus(new ConfirmEmailRequest("john.doe@example.com"));
-        verify(this.confirmationCodeRepository).deleteById(1L);
     }
 
     @Test
-    void confirmEmail_WhenCodeNotFound_ThrowsNotFoundException() {
+    void confirmEmail_WhenUserServiceFails_RestoresCode() {
         CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 1234567);
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com"))
-                .thenThrow(new NotFoundException("Код подтверждения не найден"));
 
-        NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> this.confirmationCodeService.verifyEmail(request));
-        assertEquals("Код подтверждения не найден", exception.getMessage());
+        when(this.confirmationCodeStore.consume(Type.EMAIL, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.CONSUMED);
+        doThrow(new ServiceUnavailableException()).when(this.userClient).updateEmailConfirmedStatus(any());
+
+        assertThrows(ServiceUnavailableException.class, () -> this.confirmationCodeService.verifyEmail(request));
+
+        verify(this.confirmationCodeStore).saveIfAbsent(eq(Type.EMAIL), eq("john.doe@example.com"), eq(1234567),
+                any(Duration.class));
     }
 
     @Test
-    void confirmEmail_WithInvalidCode_ThrowsValidationException() {
+    void confirmEmail_WhenCodeNotFound_ReturnsNotFound() {
+        CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 1234567);
+        when(this.confirmationCodeStore.consume(Type.EMAIL, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.NOT_FOUND);
+
+        assertEquals(ConfirmationCodeOutcome.NOT_FOUND, this.confirmationCodeService.verifyEmail(request));
+
+        verify(this.userClient, never()).updateEmailConfirmedStatus(any());
+    }
+
+    @Test
+    void confirmEmail_WithInvalidCode_ReturnsInvalid() {
         CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 7654321);
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1234567,
-                LocalDateTime.now().plusHours(1), Type.EMAIL, "john.doe@example.com");
 
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com"))
-                .thenReturn(Optional.of(confirmationCode));
-        when(this.messageSource.getMessage(eq("error.confirmation_code.not_valid"), any(), any()))
-                .thenReturn("Код подтверждения не валиден");
+        when(this.confirmationCodeStore.consume(Type.EMAIL, "john.doe@example.com", 7654321))
+                .thenReturn(ConsumeResult.INVALID);
 
-        ValidationException exception = assertThrows(ValidationException.class,
-                () -> this.confirmationCodeService.verifyEmail(request));
-        assertEquals("Код подтверждения не валиден", exception.getMessage());
+        assertEquals(ConfirmationCodeOutcome.INVALID, this.confirmationCodeService.verifyEmail(request));
 
         verify(this.userClient, never()).updateEmailConfirmedStatus(new ConfirmEmailRequest("john.doe@example.com"));
-        verify(this.confirmationCodeRepository, never()).deleteById(anyLong());
     }
 
     @Test
-    void confirmEmail_WithExpiredCode_ThrowsValidationException() {
+    void confirmEmail_WithExpiredCode_ReturnsExpired() {
         CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 1234567);
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1111111,
-                LocalDateTime.now().minusHours(1), Type.EMAIL, "john.doe@example.com");
 
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.EMAIL, "john.doe@example.com"))
-                .thenReturn(Optional.of(confirmationCode));
-        when(this.messageSource.getMessage(eq("error.confirmation_code.not_valid"), any(), any()))
-                .thenReturn("Код подтверждения не валиден");
+        when(this.confirmationCodeStore.consume(Type.EMAIL, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.EXPIRED);
 
-        ValidationException exception = assertThrows(ValidationException.class,
-                () -> this.confirmationCodeService.verifyEmail(request));
-        assertEquals("Код подтверждения не валиден", exception.getMessage());
+        assertEquals(ConfirmationCodeOutcome.EXPIRED, this.confirmationCodeService.verifyEmail(request));
 
         verify(this.userClient, never()).updateEmailConfirmedStatus(new ConfirmEmailRequest("john.doe@example.com"));
-        verify(this.confirmationCodeRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void confirmEmail_WhenAttemptsExceeded_RejectsWithoutStoreLookup() {
+        CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 1234567);
+        when(this.failedAttemptGuard.isLocked(Type.EMAIL, "john.doe@example.com")).thenReturn(true);
+
+        assertEquals(ConfirmationCodeOutcome.LOCKED, this.confirmationCodeService.verifyEmail(request));
+
+        verify(this.confirmationCodeStore, never()).consume(any(), anyString(), anyInt());
+        verify(this.userClient, never()).updateEmailConfirmedStatus(any());
+    }
+
+    @Test
+    void confirmEmail_WhenLastAllowedAttemptFails_InvalidatesCode() {
+        CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 7654321);
+        when(this.confirmationCodeStore.consume(Type.EMAIL, "john.doe@example.com", 7654321))
+                .thenReturn(ConsumeResult.INVALID);
+        when(this.failedAttemptGuard.recordFailure(Type.EMAIL, "john.doe@example.com")).thenReturn(true);
+
+        assertEquals(ConfirmationCodeOutcome.INVALID, this.confirmationCodeService.verifyEmail(request));
+
+        verify(this.confirmationCodeStore).invalidate(Type.EMAIL, "john.doe@example.com");
+    }
+
+    @Test
+    void confirmEmail_WithValidCode_ResetsFailedAttempts() {
+        CodeVerificationRequest request = new CodeVerificationRequest("john.doe@example.com", 1234567);
+        when(this.confirmationCodeStore.consume(Type.EMAIL, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.CONSUMED);
+
+        this.confirmationCodeService.verifyEmail(request);
+
+        verify(this.failedAttemptGuard).reset(Type.EMAIL, "john.doe@example.com");
+        verify(this.failedAttemptGuard, never()).recordFailure(any(), anyString());
     }
 
     @Test
     void updatePassword_WithValidCodeAndMatchingPasswords_UpdatesPassword() {
         CodeVerificationRequest codeRequest = new CodeVerificationRequest("john.doe@example.com", 1234567);
         UpdatePasswordRequest request = new UpdatePasswordRequest("newPassword123", "newPassword123", codeRequest);
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1234567,
-                LocalDateTime.now().plusHours(1), Type.PASSWORD, "john.doe@example.com");
         UserServiceUpdatePasswordRequest expectedUpdateRequest = new UserServiceUpdatePasswordRequest(
                 "newPassword123", "john.doe@example.com");
 
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.PASSWORD, "john.doe@example.com"))
-                .thenReturn(Optional.of(confirmationCode));
+        when(this.confirmationCodeStore.consume(Type.PASSWORD, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.CONSUMED);
         when(this.jwtService.generateToken()).thenReturn("generated_token");
 
-        this.confirmationCodeService.updatePassword(request);
+        assertEquals(ConfirmationCodeOutcome.PASSWORD_UPDATED, this.confirmationCodeService.updatePassword(request));
 
         verify(this.userClient).updatePassword(expectedUpdateRequest);
-        verify(this.confirmationCodeRepository).deleteByCode(1234567);
         verify(this.authClient).logoutOnAllDevices("john.doe@example.com", "generated_token");
     }
 
     @Test
-    void updatePassword_WhenCodeNotFound_ThrowsNotFoundException() {
+    void updatePassword_WhenDownstreamFailsOnce_RetriesCall() {
+        CodeVerificationRequest codeRequest = new CodeVerificationRequest("john.doe@example.com", 1234567);
+        UpdatePasswordRequest request = new UpdatePasswordRequest("newPassword123", "newPassword123", codeRequest);
+
+        when(this.confirmationCodeStore.consume(Type.PASSWORD, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.CONSUMED);
+        when(this.jwtService.generateToken()).thenReturn("generated_token");
+        doThrow(new ServiceUnavailableException()).doNothing()
+                .when(this.authClient).logoutOnAllDevices("john.doe@example.com", "generated_token");
+
+        this.confirmationCodeService.updatePassword(request);
+
+        verify(this.authClient, times(2)).logoutOnAllDevices("john.doe@example.com", "generated_token");
+        verify(this.userClient).updatePassword(any());
+        verify(this.confirmationCodeStore, never()).saveIfAbsent(any(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void updatePassword_WhenDownstreamKeepsFailing_RestoresCode() {
+        CodeVerificationRequest codeRequest = new CodeVerificationRequest("john.doe@example.com", 1234567);
+        UpdatePasswordRequest request = new UpdatePasswordRequest("newPassword123", "newPassword123", codeRequest);
+
+        when(this.confirmationCodeStore.consume(Type.PASSWORD, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.CONSUMED);
+        when(this.jwtService.generateToken()).thenReturn("generated_token");
+        doThrow(new ServiceUnavailableException()).when(this.userClient).updatePassword(any());
+
+        assertThrows(ServiceUnavailableException.class, () -> this.confirmationCodeService.updatePassword(request));
+
+        verify(this.userClient, times(2)).updatePassword(any());
+        verify(this.authClient).logoutOnAllDevices("john.doe@example.com", "generated_token");
+        verify(this.confirmationCodeStore).saveIfAbsent(eq(Type.PASSWORD), eq("john.doe@example.com"), eq(1234567),
+                any(Duration.class));
+    }
+
+    @Test
+    void updatePassword_WhenCodeNotFound_ReturnsNotFound() {
         CodeVerificationRequest codeRequest = new CodeVerificationRequest("john.doe@example.com", 1234567);
         UpdatePasswordRequest request = new UpdatePasswordRequest("newPassword123", "newPassword123", codeRequest);
 
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.PASSWORD, "john.doe@example.com"))
-                .thenReturn(Optional.empty());
+        when(this.confirmationCodeStore.consume(Type.PASSWORD, "john.doe@example.com", 1234567))
+                .thenReturn(ConsumeResult.NOT_FOUND);
 
-        NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> this.confirmationCodeService.updatePassword(request));
+        assertEquals(ConfirmationCodeOutcome.NOT_FOUND, this.confirmationCodeService.updatePassword(request));
 
         verify(this.userClient, never()).updatePassword(any());
-        verify(this.confirmationCodeRepository, never()).deleteByCode(anyInt());
         verify(this.authClient, never()).logoutOnAllDevices(anyString(), anyString());
     }
 
     @Test
-    void updatePassword_WithInvalidCode_ThrowsValidationException() {
+    void updatePassword_WithInvalidCode_ReturnsInvalid() {
         CodeVerificationRequest codeRequest = new CodeVerificationRequest("john.doe@example.com", 7654321);
         UpdatePasswordRequest request = new UpdatePasswordRequest("newPassword123", "newPassword123", codeRequest);
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1234567,
-                LocalDateTime.now().plusHours(1), Type.PASSWORD, "john.doe@example.com");
 
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.PASSWORD, "john.doe@example.com"))
-                .thenReturn(Optional.of(confirmationCode));
-        when(this.messageSource.getMessage(eq("error.confirmation_code.not_valid"), any(), any()))
-                .thenReturn("Код подтверждения не валиден");
+        when(this.confirmationCodeStore.consume(Type.PASSWORD, "john.doe@example.com", 7654321))
+                .thenReturn(ConsumeResult.INVALID);
 
-        ValidationException exception = assertThrows(ValidationException.class,
-                () -> this.confirmationCodeService.updatePassword(request));
-        assertEquals("Код подтверждения не валиден", exception.getMessage());
+        assertEquals(ConfirmationCodeOutcome.INVALID, this.confirmationCodeService.updatePassword(request));
 
         verify(this.userClient, never()).updatePassword(any());
-        verify(this.confirmationCodeRepository, never()).deleteByCode(anyInt());
         verify(this.authClient, never()).logoutOnAllDevices(anyString(), anyString());
     }
 
     @Test
-    void updatePassword_WithNonMatchingPasswords_ThrowsValidationException() {
+    void updatePassword_WithNonMatchingPasswords_ReturnsPasswordMismatch() {
         CodeVerificationRequest codeRequest = new CodeVerificationRequest("john.doe@example.com", 1234567);
         UpdatePasswordRequest request = new UpdatePasswordRequest("newPassword123", "differentPassword", codeRequest);
-        ConfirmationCode confirmationCode = new ConfirmationCode(1L, 1234567,
-                LocalDateTime.now().plusHours(1), Type.PASSWORD, "john.doe@example.com");
 
-        when(this.userClient.getByEmail("john.doe@example.com")).thenReturn(this.userDto);
-        when(this.confirmationCodeRepository.findByTypeAndUserEmail(Type.PASSWORD, "john.doe@example.com"))
-                .thenReturn(Optional.of(confirmationCode));
-        when(this.messageSource.getMessage(eq("error.password.not_match"), any(), any()))
-                .thenReturn("Пароли не совпадают");
 
-        ValidationException exception = assertThrows(ValidationException.class,
-                () -> this.confirmationCodeService.updatePassword(request));
-        assertEquals("Пароли не совпадают", exception.getMessage());
+        assertEquals(ConfirmationCodeOutcome.PASSWORD_MISMATCH, this.confirmationCodeService.updatePassword(request));
 
+        verify(this.confirmationCodeStore, never()).consume(any(), anyString(), anyInt());
         verify(this.userClient, never()).updatePassword(any());
-        verify(this.confirmationCodeRepository, never()).deleteByCode(anyInt());
         verify(this.authClient, never()).logoutOnAllDevices(anyString(), anyString());
     }
 }
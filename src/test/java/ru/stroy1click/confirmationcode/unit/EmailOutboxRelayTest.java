@@ -0,0 +1,191 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import ru.stroy1click.confirmationcode.client.EmailClient;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.entity.EmailOutboxMessage;
+import ru.stroy1click.confirmationcode.exception.ServiceUnavailableException;
+import ru.stroy1click.confirmationcode.exception.UnsupportedEndpointException;
+import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.model.*;
+import ru.stroy1click.confirmationcode.repository.EmailOutboxRepository;
+import ru.stroy1click.confirmationcode.scheduler.EmailOutboxRelay;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxRelayTest {
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private EmailClient emailClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmailOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.relay = new EmailOutboxRelay(this.emailOutboxRepository, this.emailClient, this.objectMapper, Runnable::run,
+                this.meterRegistry, 10, Duration.ofSeconds(60), 3, Duration.ofSeconds(5), Duration.ofMinutes(10), true);
+    }
+
+    @Test
+    void relay_WhenEmailSent_DeletesMessage() throws Exception {
+        EmailOutboxMessage message = message(1L, 1);
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message));
+
+        this.relay.relay();
+
+        verify(this.emailClient).sendEmail(any(SendEmailRequest.class));
+        verify(this.emailOutboxRepository).deleteById(1L);
+        assertEquals(1.0, this.meterRegistry.get("confirmation_code.outbox.sent").counter().count());
+    }
+
+    @Test
+    void relay_WhenEmailServiceUnavailable_ReschedulesMessage() throws Exception {
+        EmailOutboxMessage message = message(1L, 1);
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message));
+        doThrow(new ServiceUnavailableException()).when(this.emailClient).sendEmail(any(SendEmailRequest.class));
+
+        this.relay.relay();
+
+        verify(this.emailOutboxRepository).reschedule(eq(1L), any(LocalDateTime.class), anyString());
+        verify(this.emailOutboxRepository, never()).deleteById(anyLong());
+        verify(this.emailOutboxRepository, never()).markFailed(anyLong(), anyString());
+    }
+
+    @Test
+    void relay_WhenAttemptsExhausted_MarksMessageFailed() throws Exception {
+        EmailOutboxMessage message = message(1L, 3);
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message));
+        doThrow(new ServiceUnavailableException()).when(this.emailClient).sendEmail(any(SendEmailRequest.class));
+
+        this.relay.relay();
+
+        verify(this.emailOutboxRepository).markFailed(eq(1L), anyString());
+        verify(this.emailOutboxRepository, never()).reschedule(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void relay_WhenEmailServiceRejectsRequest_MarksMessageFailedWithoutRetry() throws Exception {
+        EmailOutboxMessage message = message(1L, 1);
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message));
+        doThrow(new ValidationException("invalid")).when(this.emailClient).sendEmail(any(SendEmailRequest.class));
+
+        this.relay.relay();
+
+        verify(this.emailOutboxRepository).markFailed(eq(1L), anyString());
+        assertEquals(1.0, this.meterRegistry.get("confirmation_code.outbox.failed").counter().count());
+    }
+
+    @Test
+    void relay_WhenBatchSent_MapsResultPerMessage() throws Exception {
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message(1L, 1), message(2L, 1), message(3L, 1), message(4L, 1)));
+        when(this.emailClient.sendBatch(any(SendEmailBatchRequest.class))).thenReturn(new SendEmailBatchResponse(List.of(
+                new SendEmailBatchItemResult(1L, EmailDeliveryStatus.SENT, null),
+                new SendEmailBatchItemResult(2L, EmailDeliveryStatus.REJECTED, "invalid email"),
+                new SendEmailBatchItemResult(3L, EmailDeliveryStatus.FAILED, "smtp timeout"))));
+
+        this.relay.relay();
+
+        verify(this.emailClient, never()).sendEmail(any());
+        verify(this.emailOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(this.emailOutboxRepository).markFailed(2L, "invalid email");
+        verify(this.emailOutboxRepository).reschedule(eq(3L), any(LocalDateTime.class), eq("smtp timeout"));
+        verify(this.emailOutboxRepository).reschedule(eq(4L), any(LocalDateTime.class), anyString());
+        assertEquals(4.0, this.meterRegistry.get("confirmation_code.outbox.batch.size").summary().totalAmount());
+        assertEquals(1, this.meterRegistry.get("confirmation_code.outbox.batch.flush").timer().count());
+    }
+
+    @Test
+    void relay_WhenBatchEndpointUnsupported_FallsBackToSingleSends() throws Exception {
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message(1L, 1), message(2L, 1)));
+        when(this.emailClient.sendBatch(any(SendEmailBatchRequest.class))).thenThrow(new UnsupportedEndpointException());
+
+        this.relay.relay();
+
+        verify(this.emailClient, times(2)).sendEmail(any(SendEmailRequest.class));
+        verify(this.emailOutboxRepository).deleteById(1L);
+        verify(this.emailOutboxRepository).deleteById(2L);
+    }
+
+    @Test
+    void relay_WhenBatchRejected_IsolatesMessagesWithSingleSends() throws Exception {
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message(1L, 1), message(2L, 1)));
+        when(this.emailClient.sendBatch(any(SendEmailBatchRequest.class))).thenThrow(new ValidationException("bad batch"));
+        doThrow(new ValidationException("invalid email")).doNothing()
+                .when(this.emailClient).sendEmail(any(SendEmailRequest.class));
+
+        this.relay.relay();
+
+        verify(this.emailOutboxRepository).markFailed(eq(1L), anyString());
+        verify(this.emailOutboxRepository).deleteById(2L);
+        verify(this.emailOutboxRepository, never()).reschedule(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void relay_WhenBatchRequestFails_ReschedulesEachMessage() throws Exception {
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(message(1L, 1), message(2L, 3)));
+        when(this.emailClient.sendBatch(any(SendEmailBatchRequest.class))).thenThrow(new ServiceUnavailableException());
+
+        this.relay.relay();
+
+        verify(this.emailClient, never()).sendEmail(any());
+        verify(this.emailOutboxRepository).reschedule(eq(1L), any(LocalDateTime.class), anyString());
+        verify(this.emailOutboxRepository).markFailed(eq(2L), anyString());
+        assertEquals(1.0, this.meterRegistry.get("confirmation_code.outbox.retried").counter().count());
+    }
+
+    @Test
+    void relay_WhenExecutorSaturated_ReturnsBatchToOutbox() throws Exception {
+        EmailOutboxRelay saturatedRelay = new EmailOutboxRelay(this.emailOutboxRepository, this.emailClient,
+                this.objectMapper, task -> { throw new TaskRejectedException("saturated"); }, this.meterRegistry,
+                2, Duration.ofSeconds(60), 3, Duration.ofSeconds(5), Duration.ofMinutes(10), true);
+        when(this.emailOutboxRepository.claimBatch(any(LocalDateTime.class), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(message(1L, 1), message(2L, 1)));
+
+        saturatedRelay.relay();
+
+        verify(this.emailOutboxRepository, times(1)).claimBatch(any(), any(), eq(2));
+        verify(this.emailOutboxRepository).release(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verifyNoInteractions(this.emailClient);
+    }
+
+    private EmailOutboxMessage message(Long id, int attempts) throws Exception {
+        UserProjection user = new UserProjection("john.doe@example.com", false, "John");
+        return EmailOutboxMessage.builder()
+                .id(id)
+                .payload(this.objectMapper.writeValueAsString(new SendEmailRequest(1_234_567, user.toUserDto())))
+                .status(OutboxStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
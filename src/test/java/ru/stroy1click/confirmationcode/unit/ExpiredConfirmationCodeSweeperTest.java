@@ -0,0 +1,57 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.stroy1click.confirmationcode.repository.ConfirmationCodeRepository;
+import ru.stroy1click.confirmationcode.scheduler.ExpiredConfirmationCodeSweeper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExpiredConfirmationCodeSweeperTest {
+
+    @Mock
+    private ConfirmationCodeRepository confirmationCodeRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ExpiredConfirmationCodeSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.sweeper = new ExpiredConfirmationCodeSweeper(this.confirmationCodeRepository, this.meterRegistry,
+                100, Duration.ZERO, 10);
+    }
+
+    @Test
+    void sweep_WhenLastBatchIsPartial_StopsAndCountsPurgedRows() {
+        when(this.confirmationCodeRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(100)))
+                .thenReturn(100, 100, 42);
+
+        this.sweeper.sweep();
+
+        verify(this.confirmationCodeRepository, times(3)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+        assertEquals(242.0, this.meterRegistry.get("confirmation_code.sweeper.purged").counter().count());
+        assertEquals(3, this.meterRegistry.get("confirmation_code.sweeper.batch").timer().count());
+    }
+
+    @Test
+    void sweep_WhenEveryBatchIsFull_StopsAtMaxBatchesPerRun() {
+        when(this.confirmationCodeRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(100))).thenReturn(100);
+
+        this.sweeper.sweep();
+
+        verify(this.confirmationCodeRepository, times(10)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+        assertEquals(1000.0, this.meterRegistry.get("confirmation_code.sweeper.purged").counter().count());
+    }
+}
@@ -0,0 +1,75 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.stroy1click.confirmationcode.lockout.FailedAttemptGuard;
+import ru.stroy1click.confirmationcode.lockout.impl.InMemoryFailedAttemptCounter;
+import ru.stroy1click.confirmationcode.model.Type;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailedAttemptGuardTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private FailedAttemptGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.guard = new FailedAttemptGuard(new InMemoryFailedAttemptCounter(1_000, this.nanos::get),
+                this.meterRegistry, 3, Duration.ofHours(24));
+    }
+
+    @Test
+    void recordFailure_OnMaxAttempts_LocksKey() {
+        assertFalse(this.guard.recordFailure(Type.EMAIL, "john.doe@example.com"));
+        assertFalse(this.guard.recordFailure(Type.EMAIL, "john.doe@example.com"));
+        assertFalse(this.guard.isLocked(Type.EMAIL, "john.doe@example.com"));
+
+        assertTrue(this.guard.recordFailure(Type.EMAIL, "john.doe@example.com"));
+
+        assertTrue(this.guard.isLocked(Type.EMAIL, "john.doe@example.com"));
+        assertFalse(this.guard.isLocked(Type.PASSWORD, "john.doe@example.com"));
+        assertEquals(3.0, this.meterRegistry.get("confirmation_code.lockout.failures").counter().count());
+        assertEquals(1.0, this.meterRegistry.get("confirmation_code.lockout.locked").counter().count());
+        assertEquals(1.0, this.meterRegistry.get("confirmation_code.lockout.rejected").counter().count());
+    }
+
+    @Test
+    void reset_UnlocksKey() {
+        for (int i = 0; i < 3; i++) this.guard.recordFailure(Type.EMAIL, "john.doe@example.com");
+
+        this.guard.reset(Type.EMAIL, "john.doe@example.com");
+
+        assertFalse(this.guard.isLocked(Type.EMAIL, "john.doe@example.com"));
+    }
+
+    @Test
+    void isLocked_AfterWindow_Unlocks() {
+        for (int i = 0; i < 3; i++) this.guard.recordFailure(Type.EMAIL, "john.doe@example.com");
+
+        this.nanos.addAndGet(Duration.ofHours(25).toNanos());
+
+        assertFalse(this.guard.isLocked(Type.EMAIL, "john.doe@example.com"));
+    }
+
+    @Test
+    void isLocked_AfterGuardWindow_UnlocksRegardlessOfOtherWindows() {
+        InMemoryFailedAttemptCounter counter = new InMemoryFailedAttemptCounter(1_000, this.nanos::get);
+        FailedAttemptGuard shortWindowGuard = new FailedAttemptGuard(counter, this.meterRegistry, 3, Duration.ofMinutes(10));
+        for (int i = 0; i < 3; i++) shortWindowGuard.recordFailure(Type.EMAIL, "john.doe@example.com");
+        counter.increment("long-window", Duration.ofHours(24));
+
+        this.nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        assertFalse(shortWindowGuard.isLocked(Type.EMAIL, "john.doe@example.com"));
+        assertEquals(1, counter.get("long-window"));
+    }
+}
@@ -0,0 +1,113 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.stroy1click.confirmationcode.model.ConsumeResult;
+import ru.stroy1click.confirmationcode.model.Type;
+import ru.stroy1click.confirmationcode.store.impl.InMemoryConfirmationCodeStore;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryConfirmationCodeStoreTest {
+
+    private MutableClock clock;
+
+    private InMemoryConfirmationCodeStore store;
+
+    @BeforeEach
+    void setUp() {
+        this.clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        this.store = new InMemoryConfirmationCodeStore(Duration.ofSeconds(1), 8, this.clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.store.destroy();
+    }
+
+    @Test
+    void saveIfAbsent_WhenLiveCodeExists_ReturnsFalse() {
+        assertTrue(this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofHours(24)));
+        assertFalse(this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 7654321, Duration.ofHours(24)));
+        assertTrue(this.store.saveIfAbsent(Type.PASSWORD, "john.doe@example.com", 7654321, Duration.ofHours(24)));
+    }
+
+    @Test
+    void consume_ValidCode_CanBeUsedOnlyOnce() {
+        this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofHours(24));
+
+        assertEquals(ConsumeResult.INVALID, this.store.consume(Type.EMAIL, "john.doe@example.com", 7654321));
+        assertEquals(ConsumeResult.CONSUMED, this.store.consume(Type.EMAIL, "john.doe@example.com", 1234567));
+        assertEquals(ConsumeResult.NOT_FOUND, this.store.consume(Type.EMAIL, "john.doe@example.com", 1234567));
+    }
+
+    @Test
+    void replaceIfPresent_ReplacesOnlyExistingCode() {
+        assertFalse(this.store.replaceIfPresent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofHours(24)));
+
+        this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofHours(24));
+        assertTrue(this.store.replaceIfPresent(Type.EMAIL, "john.doe@example.com", 7654321, Duration.ofHours(24)));
+
+        assertEquals(ConsumeResult.INVALID, this.store.consume(Type.EMAIL, "john.doe@example.com", 1234567));
+        assertEquals(ConsumeResult.CONSUMED, this.store.consume(Type.EMAIL, "john.doe@example.com", 7654321));
+    }
+
+    @Test
+    void expireDue_AfterTtl_EvictsCode() {
+        this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofMinutes(30));
+
+        this.clock.advance(Duration.ofMinutes(31));
+        assertEquals(ConsumeResult.EXPIRED, this.store.consume(Type.EMAIL, "john.doe@example.com", 1234567));
+
+        this.store.expireDue();
+        assertEquals(0, this.store.size());
+        assertEquals(ConsumeResult.NOT_FOUND, this.store.consume(Type.EMAIL, "john.doe@example.com", 1234567));
+    }
+
+    @Test
+    void expireDue_WhenCodeWasReplaced_KeepsNewCode() {
+        this.store.saveIfAbsent(Type.EMAIL, "john.doe@example.com", 1234567, Duration.ofSeconds(10));
+        this.store.replaceIfPresent(Type.EMAIL, "john.doe@example.com", 7654321, Duration.ofHours(1));
+
+        this.clock.advance(Duration.ofSeconds(20));
+        this.store.expireDue();
+
+        assertEquals(1, this.store.size());
+        assertEquals(ConsumeResult.CONSUMED, this.store.consume(Type.EMAIL, "john.doe@example.com", 7654321));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            this.instant = this.instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.instant;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.stroy1click.confirmationcode.config.RateLimitProperties;
+import ru.stroy1click.confirmationcode.ratelimit.impl.InMemoryKeyedRateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryKeyedRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private InMemoryKeyedRateLimiter rateLimiter;
+
+    private RateLimitProperties.Bandwidth bandwidth;
+
+    @BeforeEach
+    void setUp() {
+        this.rateLimiter = new InMemoryKeyedRateLimiter(1_000, Duration.ofMinutes(15), this.nanos::get);
+        this.bandwidth = new RateLimitProperties.Bandwidth();
+        this.bandwidth.setCapacity(3);
+        this.bandwidth.setRefillPeriod(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void tryAcquire_WhenBurstExhausted_ReturnsTimeUntilNextToken() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(this.rateLimiter.tryAcquire("create:email:a@b.ru", this.bandwidth).isZero());
+        }
+
+        assertEquals(Duration.ofSeconds(10), this.rateLimiter.tryAcquire("create:email:a@b.ru", this.bandwidth));
+    }
+
+    @Test
+    void tryAcquire_AfterRefillInterval_GrantsOneToken() {
+        for (int i = 0; i < 3; i++) {
+            this.rateLimiter.tryAcquire("create:email:a@b.ru", this.bandwidth);
+        }
+
+        this.nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(this.rateLimiter.tryAcquire("create:email:a@b.ru", this.bandwidth).isZero());
+        assertFalse(this.rateLimiter.tryAcquire("create:email:a@b.ru", this.bandwidth).isZero());
+    }
+
+    @Test
+    void tryAcquire_KeysAreIndependent() {
+        for (int i = 0; i < 3; i++) {
+            this.rateLimiter.tryAcquire("create:email:a@b.ru", this.bandwidth);
+        }
+
+        assertTrue(this.rateLimiter.tryAcquire("create:email:c@d.ru", this.bandwidth).isZero());
+        assertTrue(this.rateLimiter.tryAcquire("create:ip:127.0.0.1", this.bandwidth).isZero());
+    }
+
+    @Test
+    void tryAcquire_IdleBucketsAreEvicted() {
+        this.rateLimiter.tryAcquire("create:email:a@b.ru", this.bandwidth);
+
+        this.nanos.addAndGet(Duration.ofMinutes(16).toNanos());
+
+        assertEquals(0, this.rateLimiter.size());
+    }
+}
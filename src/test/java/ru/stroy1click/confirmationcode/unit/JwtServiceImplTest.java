@@ -0,0 +1,81 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.stroy1click.confirmationcode.service.impl.JwtServiceImpl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtServiceImplTest {
+
+    private static final String SECRET = "5367566B5970337336762342342342341139792F4123F452811482B4D6251655468576D5A71347437";
+
+    private final List<Runnable> refreshTasks = new ArrayList<>();
+
+    private Clock clock;
+
+    private JwtServiceImpl jwtService;
+
+    @BeforeEach
+    void setUp() {
+        this.clock = mock(Clock.class);
+        when(this.clock.millis()).thenReturn(0L);
+        this.jwtService = new JwtServiceImpl(SECRET, Duration.ofMinutes(30), this.clock, this.refreshTasks::add);
+    }
+
+    @Test
+    void generateToken_BeforeRefreshWindow_ReturnsCachedToken() {
+        when(this.clock.millis()).thenReturn(Duration.ofMinutes(100).toMillis());
+
+        String first = this.jwtService.generateToken();
+        String second = this.jwtService.generateToken();
+
+        assertSame(first, second);
+        assertTrue(this.refreshTasks.isEmpty());
+
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .setClock(() -> new java.util.Date(0))
+                .build()
+                .parseClaimsJws(first)
+                .getBody();
+        assertEquals("admin@gmail.com", claims.getSubject());
+        assertEquals("ROLE_ADMIN", claims.get("role"));
+    }
+
+    @Test
+    void generateToken_InRefreshWindow_ReturnsCurrentTokenAndRefreshesOnce() {
+        String initial = this.jwtService.generateToken();
+        when(this.clock.millis()).thenReturn(Duration.ofMinutes(280).toMillis());
+
+        assertSame(initial, this.jwtService.generateToken());
+        assertSame(initial, this.jwtService.generateToken());
+        assertEquals(1, this.refreshTasks.size());
+
+        this.refreshTasks.getFirst().run();
+
+        assertNotEquals(initial, this.jwtService.generateToken());
+    }
+
+    @Test
+    void generateToken_WhenExpired_SignsSynchronously() {
+        String initial = this.jwtService.generateToken();
+        when(this.clock.millis()).thenReturn(Duration.ofMinutes(301).toMillis());
+
+        String refreshed = this.jwtService.generateToken();
+
+        assertNotEquals(initial, refreshed);
+        assertSame(refreshed, this.jwtService.generateToken());
+    }
+}
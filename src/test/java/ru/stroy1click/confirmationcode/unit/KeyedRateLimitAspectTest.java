@@ -0,0 +1,118 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import ru.stroy1click.confirmationcode.config.RateLimitProperties;
+import ru.stroy1click.confirmationcode.exception.TooManyRequestsException;
+import ru.stroy1click.confirmationcode.model.CreateConfirmationCodeRequest;
+import ru.stroy1click.confirmationcode.model.Type;
+import ru.stroy1click.confirmationcode.ratelimit.KeyedRateLimit;
+import ru.stroy1click.confirmationcode.ratelimit.KeyedRateLimitAspect;
+import ru.stroy1click.confirmationcode.ratelimit.impl.InMemoryKeyedRateLimiter;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedRateLimitAspectTest {
+
+    private final List<String> limiterThreads = new CopyOnWriteArrayList<>();
+
+    private ReactiveEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Bandwidth bandwidth = new RateLimitProperties.Bandwidth();
+        bandwidth.setCapacity(1);
+        bandwidth.setRefillPeriod(Duration.ofMinutes(10));
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setIp(bandwidth);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getLimits().put("create", limit);
+        RateLimitProperties.Bandwidth emailBandwidth = new RateLimitProperties.Bandwidth();
+        emailBandwidth.setCapacity(2);
+        emailBandwidth.setRefillPeriod(Duration.ofMinutes(10));
+        RateLimitProperties.Limit resendLimit = new RateLimitProperties.Limit();
+        resendLimit.setIp(bandwidth);
+        resendLimit.setEmail(emailBandwidth);
+        properties.getLimits().put("resend", resendLimit);
+
+        InMemoryKeyedRateLimiter rateLimiter = new InMemoryKeyedRateLimiter(properties);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ReactiveEndpoint());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new KeyedRateLimitAspect((key, limitBandwidth) -> {
+            this.limiterThreads.add(Thread.currentThread().getName());
+            return rateLimiter.tryAcquire(key, limitBandwidth);
+        }, properties, new SimpleMeterRegistry()));
+        this.endpoint = factory.getProxy();
+    }
+
+    @Test
+    void reactiveCall_LimitsByRemoteAddressOffEventLoop() {
+        assertEquals("ok", call("10.0.0.1"));
+
+        assertThrows(TooManyRequestsException.class, () -> call("10.0.0.1"));
+        assertEquals("ok", call("10.0.0.2"));
+        assertTrue(this.limiterThreads.stream().allMatch(name -> name.startsWith("boundedElastic")));
+    }
+
+    @Test
+    void reactiveCall_ChecksLimitOnSubscription() {
+        Mono<String> call = this.endpoint.create(new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com"));
+
+        assertTrue(this.limiterThreads.isEmpty());
+        assertEquals("ok", call.contextWrite(exchangeFrom("10.0.0.3")).block());
+        assertEquals(1, this.limiterThreads.size());
+    }
+
+    @Test
+    void reactiveCall_WhenIpRejected_DoesNotConsumeEmailLimit() {
+        assertEquals("ok", resend("10.0.0.4"));
+        assertThrows(TooManyRequestsException.class, () -> resend("10.0.0.4"));
+        assertThrows(TooManyRequestsException.class, () -> resend("10.0.0.4"));
+
+        assertEquals("ok", resend("10.0.0.5"));
+        assertThrows(TooManyRequestsException.class, () -> resend("10.0.0.6"));
+    }
+
+    private String resend(String ip){
+        return this.endpoint.resend(new CreateConfirmationCodeRequest(Type.EMAIL, "jane.doe@example.com"))
+                .contextWrite(exchangeFrom(ip))
+                .block();
+    }
+
+    private String call(String ip){
+        return this.endpoint.create(new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com"))
+                .contextWrite(exchangeFrom(ip))
+                .block();
+    }
+
+    private static Context exchangeFrom(String ip){
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/v1/confirmation-codes")
+                .remoteAddress(new InetSocketAddress(ip, 40_000)));
+        return Context.of(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE, exchange);
+    }
+
+    public static class ReactiveEndpoint {
+
+        @KeyedRateLimit("create")
+        public Mono<String> create(CreateConfirmationCodeRequest codeRequest){
+            return Mono.just("ok");
+        }
+
+        @KeyedRateLimit("resend")
+        public Mono<String> resend(CreateConfirmationCodeRequest codeRequest){
+            return Mono.just("ok");
+        }
+    }
+}
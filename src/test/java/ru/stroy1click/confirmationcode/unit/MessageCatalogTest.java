@@ -0,0 +1,76 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import ru.stroy1click.confirmationcode.controller.ConfirmationCodeResponses;
+import ru.stroy1click.confirmationcode.message.MessageCatalog;
+import ru.stroy1click.confirmationcode.model.ConfirmationCodeOutcome;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCatalogTest {
+
+    private static final Locale RU = Locale.forLanguageTag("ru");
+
+    private MessageCatalog messageCatalog;
+
+    private ConfirmationCodeResponses confirmationCodeResponses;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        messageSource.setFallbackToSystemLocale(false);
+
+        this.messageCatalog = new MessageCatalog(messageSource, "messages", List.of(RU, Locale.ENGLISH));
+        this.confirmationCodeResponses = new ConfirmationCodeResponses(this.messageCatalog);
+    }
+
+    @Test
+    void get_SupportedLanguage_ReturnsLocalizedMessage() {
+        assertEquals("Электронная почта подтверждена", this.messageCatalog.get("info.confirmation_code.email.confirmed", RU));
+        assertEquals("Email confirmed", this.messageCatalog.get("info.confirmation_code.email.confirmed", Locale.US));
+    }
+
+    @Test
+    void get_UnsupportedOrMissingLocale_FallsBackToDefault() {
+        assertEquals("Пароли не совпадают", this.messageCatalog.get("error.password.not_match", Locale.GERMAN));
+        assertEquals("Пароли не совпадают", this.messageCatalog.get("error.password.not_match", null));
+    }
+
+    @Test
+    void get_UnknownKey_ThrowsNoSuchMessageException() {
+        assertThrows(NoSuchMessageException.class, () -> this.messageCatalog.get("error.unknown", RU));
+    }
+
+    @Test
+    void toResponse_Success_ReusesPrebuiltResponse() {
+        ResponseEntity<Object> response = this.confirmationCodeResponses.toResponse(ConfirmationCodeOutcome.SENT, Locale.UK);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("The confirmation code has been sent to your email", response.getBody());
+        assertSame(response, this.confirmationCodeResponses.toResponse(ConfirmationCodeOutcome.SENT, Locale.ENGLISH));
+    }
+
+    @Test
+    void toResponse_Rejection_BuildsFreshProblemDetail() {
+        ResponseEntity<Object> first = this.confirmationCodeResponses.toResponse(ConfirmationCodeOutcome.NOT_FOUND, RU);
+        ResponseEntity<Object> second = this.confirmationCodeResponses.toResponse(ConfirmationCodeOutcome.NOT_FOUND, RU);
+
+        assertEquals(HttpStatus.NOT_FOUND, first.getStatusCode());
+        ProblemDetail problemDetail = assertInstanceOf(ProblemDetail.class, first.getBody());
+        assertEquals("Не найдено", problemDetail.getTitle());
+        assertEquals("Код подтверждения не найден", problemDetail.getDetail());
+        assertNotSame(first.getBody(), second.getBody());
+    }
+}
@@ -0,0 +1,81 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.stroy1click.confirmationcode.exception.ValidationException;
+import ru.stroy1click.confirmationcode.metrics.OperationMetricsAspect;
+import ru.stroy1click.confirmationcode.model.CodeVerificationRequest;
+import ru.stroy1click.confirmationcode.model.ConfirmationCodeOutcome;
+import ru.stroy1click.confirmationcode.model.CreateConfirmationCodeRequest;
+import ru.stroy1click.confirmationcode.model.Type;
+import ru.stroy1click.confirmationcode.service.ConfirmationCodeService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OperationMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConfirmationCodeService target;
+
+    private ConfirmationCodeService service;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.target = mock(ConfirmationCodeService.class);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(this.target);
+        factory.addInterface(ConfirmationCodeService.class);
+        factory.addAspect(new OperationMetricsAspect(this.meterRegistry, CircuitBreakerRegistry.ofDefaults()));
+        this.service = factory.getProxy();
+    }
+
+    @Test
+    void create_Success_RecordsSentOutcome() {
+        when(this.target.create(any())).thenReturn(ConfirmationCodeOutcome.SENT);
+
+        this.service.create(new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com"));
+
+        assertEquals(1, this.meterRegistry.get("confirmation_code.service")
+                .tags("method", "create", "outcome", "sent").timer().count());
+    }
+
+    @Test
+    void create_AlreadySent_RecordsReasonAsOutcome() {
+        when(this.target.create(any())).thenReturn(ConfirmationCodeOutcome.ALREADY_SENT);
+
+        assertEquals(ConfirmationCodeOutcome.ALREADY_SENT,
+                this.service.create(new CreateConfirmationCodeRequest(Type.EMAIL, "john.doe@example.com")));
+
+        assertEquals(1, this.meterRegistry.get("confirmation_code.service")
+                .tags("method", "create", "outcome", "already_sent").timer().count());
+    }
+
+    @Test
+    void verifyEmail_NotFound_RecordsNotFoundOutcome() {
+        when(this.target.verifyEmail(any())).thenReturn(ConfirmationCodeOutcome.NOT_FOUND);
+
+        this.service.verifyEmail(new CodeVerificationRequest("john.doe@example.com", 1234567));
+
+        assertEquals(1, this.meterRegistry.get("confirmation_code.service")
+                .tags("method", "verifyEmail", "outcome", "not_found").timer().count());
+    }
+
+    @Test
+    void verifyEmail_DownstreamBadRequest_RecordsInvalidRequest() {
+        when(this.target.verifyEmail(any())).thenThrow(new ValidationException("bad request"));
+
+        assertThrows(ValidationException.class,
+                () -> this.service.verifyEmail(new CodeVerificationRequest("john.doe@example.com", 1234567)));
+
+        assertEquals(1, this.meterRegistry.get("confirmation_code.service")
+                .tags("method", "verifyEmail", "outcome", "invalid_request").timer().count());
+    }
+}
@@ -0,0 +1,44 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import ru.stroy1click.confirmationcode.client.impl.ReactiveUserClientImpl;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.exception.ServiceErrorResponseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveUserClientImplTest {
+
+    @Test
+    void getByEmail_ValidResponse_ReturnsProjection() {
+        ReactiveUserClientImpl userClient = clientReturning("""
+                {"email":"john.doe@example.com","emailConfirmed":true,"firstName":"John","role":"ROLE_USER"}""");
+
+        assertEquals(new UserProjection("john.doe@example.com", true, "John"),
+                userClient.getByEmail("john.doe@example.com").block());
+    }
+
+    @Test
+    void getByEmail_MissingEmailConfirmed_Throws() {
+        ReactiveUserClientImpl userClient = clientReturning("""
+                {"email":"john.doe@example.com","firstName":"John"}""");
+
+        assertThrows(ServiceErrorResponseException.class, () -> userClient.getByEmail("john.doe@example.com").block());
+    }
+
+    private static ReactiveUserClientImpl clientReturning(String json){
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(json)
+                        .build()))
+                .build();
+        return new ReactiveUserClientImpl(webClient);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.stroy1click.confirmationcode.unit;
+
+import org.junit.jupiter.api.Test;
+import ru.stroy1click.confirmationcode.dto.UserProjection;
+import ru.stroy1click.confirmationcode.util.UserProjectionParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProjectionParserTest {
+
+    @Test
+    void parse_FullUserDto_SkipsUnknownFields() throws IOException {
+        String json = """
+                {"id":1,"firstName":"Ryan","lastName":"Thompson","email":"rayan_thompson@gmail.com",
+                 "password":"$2a$12$hash","emailConfirmed":true,"role":"ROLE_USER",
+                 "address":{"city":"Moscow","tags":["a",{"b":1}]},"phones":[1,2,3]}""";
+
+        UserProjection user = UserProjectionParser.parse(stream(json));
+
+        assertEquals(new UserProjection("rayan_thompson@gmail.com", true, "Ryan"), user);
+    }
+
+    @Test
+    void parse_NullAndMissingFields_ReturnsNulls() throws IOException {
+        UserProjection user = UserProjectionParser.parse(stream("""
+                {"email":null,"emailConfirmed":false}"""));
+
+        assertEquals(new UserProjection(null, false, null), user);
+    }
+
+    @Test
+    void parse_NonScalarKnownField_SkipsIt() throws IOException {
+        UserProjection user = UserProjectionParser.parse(stream("""
+                {"email":{"value":"rayan_thompson@gmail.com"},"firstName":["Ryan"],
+                 "emailConfirmed":true,"lastName":"Thompson"}"""));
+
+        assertEquals(new UserProjection(null, true, null), user);
+    }
+
+    @Test
+    void parse_MissingEmailConfirmed_Throws() {
+        IOException exception = assertThrows(IOException.class, () -> UserProjectionParser.parse(stream("""
+                {"email":"rayan_thompson@gmail.com","firstName":"Ryan"}""")));
+
+        assertTrue(exception.getMessage().contains("emailConfirmed"));
+    }
+
+    @Test
+    void parse_NullEmailConfirmed_Throws() {
+        assertThrows(IOException.class, () -> UserProjectionParser.parse(stream("""
+                {"email":"rayan_thompson@gmail.com","emailConfirmed":null}""")));
+    }
+
+    @Test
+    void parse_NotAnObject_Throws() {
+        assertThrows(IOException.class, () -> UserProjectionParser.parse(stream("[]")));
+    }
+
+    private static ByteArrayInputStream stream(String json){
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -29,4 +29,33 @@ insert into confirmation_code.confirmation_codes(code, expiration_date, type, us
 
 -- Test: ConfirmationCodeIntegrationTests updatePassword_PasswordsDoNotMatch_ReturnsError()
 -- Description: попытка обновить пароль при разных паролях(newPassword != confirmPassword)
-insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'EMAIL','ryangosling@gmail.com');
\ No newline at end of file
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'EMAIL','ryangosling@gmail.com');
+
+-- Test: ReactiveConfirmationCodeTests confirmEmail_ValidCode_ConfirmsEmail()
+-- Description: подтверждение почты (профиль reactive)
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'EMAIL','reactive.jeffbezos@gmail.com');
+
+-- Test: ReactiveConfirmationCodeTests recreate_ExistingCode_RegeneratesConfirmationCode()
+-- Description: пересоздание кода подтверждения (профиль reactive)
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'EMAIL','reactive.donaldtrump@gmail.com');
+
+-- Test: ReactiveConfirmationCodeTests updatePassword_ValidCodeAndPasswords_UpdatesPassword()
+-- Description: обновление пароля (профиль reactive)
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'PASSWORD','reactive.paveldurovtg@gmail.com');
+
+-- Test: ReactiveConfirmationCodeTests confirmEmail_InvalidCode_ReturnsError()
+-- Description: попытка подтвердить почту с неверным кодом подтверждения (профиль reactive)
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'EMAIL','reactive.tomholland@gmail.com');
+
+
+-- Test: ConfirmationCodeTests confirmEmail_ValidCode_HoldsNoConnectionDuringRemoteCall()
+-- Description: подтверждение почты без соединения с БД во время запроса в user-service
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'EMAIL','elonmusk@gmail.com');
+
+-- Test: ReactiveConfirmationCodeTests confirmEmail_WhenUserServiceFails_RestoresCode()
+-- Description: возврат кода после ошибки user-service (профиль reactive)
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'EMAIL','reactive.mattdamon@gmail.com');
+
+-- Test: ReactiveConfirmationCodeTests updatePassword_WhenAuthServiceFails_RestoresCode()
+-- Description: возврат кода после ошибки auth-service (профиль reactive)
+insert into confirmation_code.confirmation_codes(code, expiration_date, type, user_email) values (1234567, '2029-06-15 14:30:45.123456', 'PASSWORD','reactive.keanureeves@gmail.com');